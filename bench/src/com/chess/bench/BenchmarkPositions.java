@@ -0,0 +1,46 @@
+package com.chess.bench;
+
+import com.chess.engine.board.Board;
+import com.chess.pgn.FenUtilities;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The fixed positions every benchmark runs on, so results stay comparable between releases.
+// The names are used as JMH @Param values.
+public final class BenchmarkPositions {
+
+    public static final String OPENING = "opening";
+    public static final String MIDDLEGAME = "middlegame";
+    public static final String ENDGAME = "endgame";
+
+    private static final Map<String, String> FENS = createFens();
+
+    private BenchmarkPositions(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static Board load(final String name){
+        final String fen = FENS.get(name);
+        if(fen == null){
+            throw new IllegalArgumentException("Unknown benchmark position " + name);
+        }
+        return FenUtilities.createGameFromFEN(fen);
+    }
+
+    public static Map<String, String> getFens(){
+        return FENS;
+    }
+
+    private static Map<String, String> createFens(){
+        final Map<String, String> fens = new LinkedHashMap<>();
+        // Ruy Lopez after 3...a6: every piece still on the board, castling rights intact.
+        fens.put(OPENING, "r1bqkbnr/1ppp1ppp/p1n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 0 4");
+        // Kiwipete: crowded middlegame full of captures, pins, castling and en passant chances.
+        fens.put(MIDDLEGAME, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        // Rook and pawns ending with long slider rays and few pieces.
+        fens.put(ENDGAME, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        return Collections.unmodifiableMap(fens);
+    }
+}
@@ -0,0 +1,25 @@
+package com.chess.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the benchmarks with the GC profiler attached, which adds gc.alloc.rate.norm (bytes allocated per operation)
+// next to each throughput score. An optional argument narrows the run down with a JMH include regex,
+// e.g. "BoardBenchmark.makeMove".
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        final Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "com.chess.bench.*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,107 @@
+package com.chess.bench;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.MoveFactory;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.player.MoveTransition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The engine paths we actually run hot: building a Board, generating moves, executing a move,
+// trial-playing it through Player.makeMove and looking a move up with MoveFactory.
+// Run through BenchmarkRunner to get the allocation rate per operation alongside the throughput.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    private Board board;
+    private List<Piece> pieces;
+    private Move move;
+    private SearchBoard searchBoard;
+    private final int[] moveList = new int[SearchBoard.MAX_MOVES];
+
+    @Setup
+    public void setUp(){
+        this.board = BenchmarkPositions.load(this.position);
+        this.pieces = new ArrayList<>(this.board.getWhitePieces());
+        this.pieces.addAll(this.board.getBlackPieces());
+        // Benchmark a legal move from the middle of the list, so it is not always the first piece's first move.
+        final List<Move> legalMoves = new ArrayList<>(this.board.currentPlayer().getLegalMoves());
+        for(int i = legalMoves.size() / 2; i < legalMoves.size(); i++){
+            if(this.board.currentPlayer().makeMove(legalMoves.get(i)).getMoveStatus().isDone()){
+                this.move = legalMoves.get(i);
+                break;
+            }
+        }
+        this.searchBoard = new SearchBoard(this.board);
+    }
+
+    // The Board(Builder) constructor. Legal moves are generated lazily, so this is the piece placement alone.
+    @Benchmark
+    public Board buildBoard(){
+        return newBoard();
+    }
+
+    // The legal moves of a board no one has asked yet: the SearchBoard generator plus the LegalMoves index
+    // of Move objects built from its packed moves. Players keep their moves, so every call needs a new Board;
+    // subtract buildBoard for the move generation alone.
+    @Benchmark
+    public Collection<Move> calculateLegalMoves(){
+        return newBoard().currentPlayer().getLegalMoves();
+    }
+
+    // The packed move generator of SearchBoard, filling a reused int[] instead of allocating Move objects.
+    @Benchmark
+    public int generatePackedMoves(){
+        return this.searchBoard.generateLegalMoves(this.moveList);
+    }
+
+    @Benchmark
+    public Board executeMove(){
+        return this.move.execute();
+    }
+
+    // Looking the move up in the player's legal moves, which the generator already cleared of moves leaving the King
+    // in check, plus Move.execute. The legal moves were generated in setUp and are kept by the Player.
+    @Benchmark
+    public MoveTransition makeMove(){
+        return this.board.currentPlayer().makeMove(this.move);
+    }
+
+    @Benchmark
+    public Move createMove(){
+        return MoveFactory.createMove(this.board, this.move.getCurrentCoordinate(), this.move.getDestinationCoordinate());
+    }
+
+    private Board newBoard(){
+        final Board.Builder builder = new Board.Builder();
+        for(final Piece piece: this.pieces){
+            builder.setPiece(piece);
+        }
+        builder.setMoveMaker(this.board.currentPlayer().getColor());
+        return builder.build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.chess.bench;
+
+import com.chess.engine.board.Board;
+import com.chess.pgn.FenUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// FEN throughput for bulk position loading. Every operation is one position, so the scores read as positions per second.
+// readFen stops at the filled Board.Builder, loadFen goes on to build the Board as createGameFromFEN does.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FenBenchmark {
+
+    @Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    private String fen;
+    private Board board;
+    private final StringBuilder fenBuilder = new StringBuilder(90);
+
+    @Setup
+    public void setUp(){
+        this.fen = BenchmarkPositions.getFens().get(this.position);
+        this.board = BenchmarkPositions.load(this.position);
+    }
+
+    @Benchmark
+    public Board.Builder readFen(){
+        return FenUtilities.readFEN(this.fen, new Board.Builder());
+    }
+
+    @Benchmark
+    public Board loadFen(){
+        return FenUtilities.createGameFromFEN(this.fen);
+    }
+
+    // Appending to the same StringBuilder every time, as a bulk export would.
+    @Benchmark
+    public int writeFen(){
+        this.fenBuilder.setLength(0);
+        return FenUtilities.writeFEN(this.board, this.fenBuilder).length();
+    }
+}
@@ -0,0 +1,163 @@
+package com.chess.engine;
+
+import java.util.Arrays;
+
+// A fixed-size hash table of search results, keyed by Zobrist hash and shared by all search threads.
+// It is one preallocated long[] sized in megabytes, so storing and probing never allocate.
+// Every entry is two longs: the key XORed with the data, and the data itself.
+// The data packs the best move, score, depth, bound type and the age of the search that stored it:
+// bits 0-31 move, 32-47 score, 48-55 depth, 56-57 bound, 58-63 age.
+// There are no locks. Two threads writing the same slot at once can leave a key from one entry next to the data of
+// another (and the JLS even allows a single long write to tear). Such a slot no longer satisfies
+// (stored key ^ data) == key, so a probe simply treats it as a miss instead of returning a wrong result.
+// Entries are grouped in buckets of four, 64 bytes or one cache line, and a probe only looks inside one bucket.
+public final class TranspositionTable {
+
+    // Bound types. A stored score is exact, a lower bound (it failed high) or an upper bound (it failed low).
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_UPPER = 3;
+
+    // Returned by probe() when the position is not in the table. Real entries always have a bound, so never look like this.
+    public static final long NO_ENTRY = 0L;
+    public static final int NO_MOVE = 0;
+
+    public static final int MAX_DEPTH = 0xFF;
+
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    private static final int ENTRIES_PER_BUCKET = 4;
+    private static final int LONGS_PER_BUCKET = 2 * ENTRIES_PER_BUCKET;
+
+    // The largest power of two number of buckets whose longs still fit in one Java array.
+    private static final long MAX_BUCKETS = 1L << 27;
+
+    private static final int AGE_MASK = 0x3F;
+
+    private final long[] table;
+    private final long bucketMask;
+    private volatile int age;
+
+    public TranspositionTable(final int sizeInMegabytes){
+        if(sizeInMegabytes < 1){
+            throw new IllegalArgumentException("A transposition table needs at least 1 MB, not " + sizeInMegabytes);
+        }
+        // Round the bucket count down to a power of two, so a bucket is found with a mask instead of a division.
+        final long maxBuckets = ((long) sizeInMegabytes << 20) / (BYTES_PER_ENTRY * ENTRIES_PER_BUCKET);
+        final long buckets = Math.min(Long.highestOneBit(maxBuckets), MAX_BUCKETS);
+        this.table = new long[(int) (buckets * LONGS_PER_BUCKET)];
+        this.bucketMask = buckets - 1;
+        this.age = 0;
+    }
+
+    // The data stored for the given position, or NO_ENTRY. Unpack it with getMove, getScore, getDepth and getBound.
+    public long probe(final long key){
+        final int bucket = bucketIndex(key);
+        for(int i = bucket; i < bucket + LONGS_PER_BUCKET; i += 2){
+            final long data = this.table[i + 1];
+            if(data != NO_ENTRY && (this.table[i] ^ data) == key){
+                return data;
+            }
+        }
+        return NO_ENTRY;
+    }
+
+    // Store a search result. The same position always overwrites its own slot, keeping the old best move
+    // if the new result has none. Otherwise the slot given up is the one least worth keeping:
+    // shallow entries go first, and entries from earlier searches count as shallower the older they are.
+    public void store(final long key, final int move, final int score, final int depth, final int bound){
+        final int bucket = bucketIndex(key);
+        final int currentAge = this.age;
+        int replace = bucket;
+        int lowestWorth = Integer.MAX_VALUE;
+        for(int i = bucket; i < bucket + LONGS_PER_BUCKET; i += 2){
+            final long data = this.table[i + 1];
+            if(data == NO_ENTRY){
+                if(lowestWorth > Integer.MIN_VALUE){
+                    replace = i;
+                    lowestWorth = Integer.MIN_VALUE;
+                }
+                continue;
+            }
+            if((this.table[i] ^ data) == key){
+                replace = i;
+                break;
+            }
+            final int worth = getDepth(data) - 8 * ((currentAge - getAge(data)) & AGE_MASK);
+            if(worth < lowestWorth){
+                replace = i;
+                lowestWorth = worth;
+            }
+        }
+
+        int storedMove = move;
+        final long previous = this.table[replace + 1];
+        if(storedMove == NO_MOVE && previous != NO_ENTRY && (this.table[replace] ^ previous) == key){
+            storedMove = getMove(previous);
+        }
+        final long data = pack(storedMove, score, depth, bound, currentAge);
+        this.table[replace] = key ^ data;
+        this.table[replace + 1] = data;
+    }
+
+    // Call once before every new search, so entries left over from earlier searches are replaced first.
+    public void newSearch(){
+        this.age = (this.age + 1) & AGE_MASK;
+    }
+
+    public void clear(){
+        Arrays.fill(this.table, 0L);
+        this.age = 0;
+    }
+
+    // How full the table is in permille, estimated from the first thousand entries.
+    public int hashfull(){
+        int used = 0;
+        final int currentAge = this.age;
+        for(int i = 0; i < 2000; i += 2){
+            if(this.table[i + 1] != NO_ENTRY && getAge(this.table[i + 1]) == currentAge){
+                used++;
+            }
+        }
+        return used;
+    }
+
+    public int getCapacity(){
+        return this.table.length / 2;
+    }
+
+    // Unpacking of the data returned by probe().
+    public static int getMove(final long data){
+        return (int) data;
+    }
+    public static int getScore(final long data){
+        return (short) (data >>> 32);
+    }
+    public static int getDepth(final long data){
+        return (int) (data >>> 48) & 0xFF;
+    }
+    public static int getBound(final long data){
+        return (int) (data >>> 56) & 0x3;
+    }
+    private static int getAge(final long data){
+        return (int) (data >>> 58) & AGE_MASK;
+    }
+
+    // Scores must fit in a short, depths are capped at MAX_DEPTH.
+    private static long pack(final int move, final int score, final int depth, final int bound, final int age){
+        if(score < Short.MIN_VALUE || score > Short.MAX_VALUE){
+            throw new IllegalArgumentException("Score out of range: " + score);
+        }
+        if(bound < BOUND_EXACT || bound > BOUND_UPPER){
+            throw new IllegalArgumentException("Unknown bound type: " + bound);
+        }
+        return (move & 0xFFFFFFFFL) |
+               ((score & 0xFFFFL) << 32) |
+               ((long) Math.max(0, Math.min(depth, MAX_DEPTH)) << 48) |
+               ((long) bound << 56) |
+               ((long) age << 58);
+    }
+
+    private int bucketIndex(final long key){
+        return (int) (key & this.bucketMask) * LONGS_PER_BUCKET;
+    }
+}
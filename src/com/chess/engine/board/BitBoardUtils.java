@@ -0,0 +1,64 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Color;
+import com.chess.engine.pieces.Piece.PieceType;
+
+// Helpful constants and static methods for working with bitboards.
+// A bitboard is a long where bit i is set when square i (0 = a8, 63 = h1) is part of the set.
+public class BitBoardUtils {
+
+    public static final long EMPTY = 0L;
+
+    // Column masks, built from the boolean arrays in BoardUtils so both representations agree on the layout.
+    public static final long FIRST_COLUMN = toMask(BoardUtils.FIRST_COLUMN);
+    public static final long SECOND_COLUMN = toMask(BoardUtils.SECOND_COLUMN);
+    public static final long SEVENTH_COLUMN = toMask(BoardUtils.SEVENTH_COLUMN);
+    public static final long EIGHTH_COLUMN = toMask(BoardUtils.EIGHTH_COLUMN);
+
+    // Rank masks.
+    public static final long EIGHTH_RANK = toMask(BoardUtils.EIGHTH_RANK);
+    public static final long SEVENTH_RANK = toMask(BoardUtils.SEVENTH_RANK);
+    public static final long SECOND_RANK = toMask(BoardUtils.SECOND_RANK);
+    public static final long FIRST_RANK = toMask(BoardUtils.FIRST_RANK);
+
+    // There are six piece types per color, so a board needs twelve piece bitboards.
+    public static final int NUM_PIECE_TYPES = PieceType.values().length;
+    public static final int NUM_PIECE_BITBOARDS = NUM_PIECE_TYPES * Color.values().length;
+
+    private BitBoardUtils(){
+        throw new RuntimeException("You cannot instantiate this class");
+    }
+
+    // The single bit for a given square coordinate.
+    public static long squareMask(final int squareCoordinate){
+        return 1L << squareCoordinate;
+    }
+
+    // The slot a piece of a given color and type occupies in a board's piece bitboard array.
+    public static int pieceIndex(final Color color, final PieceType pieceType){
+        return color.ordinal() * NUM_PIECE_TYPES + pieceType.ordinal();
+    }
+
+    // The lowest set square of a non-empty bitboard. Used with (bitboard & bitboard - 1) to walk a set.
+    public static int firstSquare(final long bitboard){
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    public static int bitCount(final long bitboard){
+        return Long.bitCount(bitboard);
+    }
+
+    public static boolean isSet(final long bitboard, final int squareCoordinate){
+        return (bitboard & squareMask(squareCoordinate)) != 0;
+    }
+
+    private static long toMask(final boolean[] squares){
+        long mask = EMPTY;
+        for(int i = 0; i < BoardUtils.NUM_SQUARES; i++){
+            if(squares[i]){
+                mask |= squareMask(i);
+            }
+        }
+        return mask;
+    }
+}
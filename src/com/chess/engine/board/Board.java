@@ -14,6 +14,13 @@ public class Board {
     // We are choosing a List of squares since it can be Immutable, unlike arrays.
     private final List<Square> gameBoard;
 
+    // Bitboard core. One long per color and piece type, indexed with BitBoardUtils.pieceIndex,
+    // plus the occupancy masks we need for move generation and attack queries.
+    private final long[] pieceBitboards;
+    private final long whiteOccupancy;
+    private final long blackOccupancy;
+    private final long allOccupancy;
+
     // We will then have our collection of pieces. This will be used to store all our pieces on the board.
     private final Collection<Piece> blackPieces;
     private final Collection<Piece> whitePieces;
@@ -24,29 +31,40 @@ public class Board {
 
     private final Player currentPlayer;
 
+    // The pawn that just made a two square jump and can be captured en passant, or null.
+    private final Pawn enPassantPawn;
+
+    // Castling rights as BoardUtils bits, derived from which Kings and Rooks are still unmoved.
+    private final int castlingRights;
+
+    // 64-bit Zobrist key of the position. Carried over incrementally from the previous board by Move.execute,
+    // or calculated from scratch when the Builder does not supply one.
+    private final long zobristHash;
+
+    // Half moves since the last capture or pawn move, for the fifty-move rule, and the number of the full move
+    // being played, which starts at 1 and goes up after every Black move. Both as in FEN.
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+
     // Using Builder pattern for the constructor
     private Board(final Builder builder){
         this.gameBoard = createGameBoard(builder);
-        this.blackPieces = calculateActivePieces(this.gameBoard, Color.BLACK);
-        this.whitePieces = calculateActivePieces(this.gameBoard, Color.WHITE);
-
-        // Storing a collection of all legal moves for all pieces when game starts.
-        final Collection<Move> blackLegalMoves = calculateLegalMoves(this.blackPieces);
-        final Collection<Move> whiteLegalMoves = calculateLegalMoves(this.whitePieces);
-
-        // Constructing the players with their own moves and the counterpart moves to determine legal castle moves
-        this.whitePlayer = new WhitePlayer(this, whiteLegalMoves, blackLegalMoves);
-        this.blackPlayer = new BlackPlayer(this, whiteLegalMoves, blackLegalMoves);
+        this.pieceBitboards = createPieceBitboards(builder);
+        this.whiteOccupancy = calculateOccupancy(this.pieceBitboards, Color.WHITE);
+        this.blackOccupancy = calculateOccupancy(this.pieceBitboards, Color.BLACK);
+        this.allOccupancy = this.whiteOccupancy | this.blackOccupancy;
+        this.enPassantPawn = builder.enPassantPawn;
+        this.castlingRights = calculateCastlingRights(this.gameBoard);
+        this.blackPieces = calculateActivePieces(this.gameBoard, this.blackOccupancy);
+        this.whitePieces = calculateActivePieces(this.gameBoard, this.whiteOccupancy);
+
+        // The players work out their legal moves and check status themselves, the first time they are asked.
+        this.whitePlayer = new WhitePlayer(this);
+        this.blackPlayer = new BlackPlayer(this);
         this.currentPlayer = builder.nextMoveMaker.choosePlayer(this.whitePlayer, this.blackPlayer);
-    }
-
-    // For all given Pieces, regardless of color, return all the legalmoves on the current board.
-    private Collection<Move> calculateLegalMoves(final Collection<Piece> pieces){
-        final List<Move> legalMoves = new ArrayList<>();
-        for(final Piece piece: pieces){
-           legalMoves.addAll(piece.calcLegalMove(this));
-        }
-        return Collections.unmodifiableList(legalMoves);
+        this.zobristHash = builder.zobristHash != null ? builder.zobristHash : Zobrist.calculateHash(this);
+        this.halfmoveClock = builder.halfmoveClock;
+        this.fullmoveNumber = builder.fullmoveNumber;
     }
 
     // Getting the coordinate of a square
@@ -63,6 +81,88 @@ public class Board {
         return this.whitePieces;
     }
 
+    // The squares holding pieces of the given color and type.
+    public long getPieceBitboard(final Color color, final Piece.PieceType pieceType){
+        return this.pieceBitboards[BitBoardUtils.pieceIndex(color, pieceType)];
+    }
+
+    // The squares holding pieces of the given type, of either color.
+    public long getPieceBitboards(final Piece.PieceType pieceType){
+        return getPieceBitboard(Color.WHITE, pieceType) | getPieceBitboard(Color.BLACK, pieceType);
+    }
+
+    // The squares holding any piece of the given color.
+    public long getOccupancy(final Color color){
+        return color.isWhite() ? this.whiteOccupancy : this.blackOccupancy;
+    }
+
+    // The squares holding any piece at all.
+    public long getOccupancy(){
+        return this.allOccupancy;
+    }
+
+    public boolean isSquareOccupied(final int squareCoordinate){
+        return BitBoardUtils.isSet(this.allOccupancy, squareCoordinate);
+    }
+
+    // Whether any piece of the given color attacks the square. Worked out backwards from the square with the
+    // attack tables: a Knight attacks it exactly when a Knight on the square would attack the Knight, and so on.
+    public boolean isSquareAttacked(final int squareCoordinate, final Color attackerColor){
+        final long queens = getPieceBitboard(attackerColor, Piece.PieceType.QUEEN);
+        return LeaperAttacks.isAttackedByPawn(this, squareCoordinate, attackerColor) ||
+               LeaperAttacks.isAttackedByKnight(this, squareCoordinate, attackerColor) ||
+               LeaperAttacks.isAttackedByKing(this, squareCoordinate, attackerColor) ||
+               (MagicBitBoards.bishopAttacks(squareCoordinate, this.allOccupancy) &
+                (getPieceBitboard(attackerColor, Piece.PieceType.BISHOP) | queens)) != 0 ||
+               (MagicBitBoards.rookAttacks(squareCoordinate, this.allOccupancy) &
+                (getPieceBitboard(attackerColor, Piece.PieceType.ROOK) | queens)) != 0;
+    }
+
+    // The squares of all pieces, of both colors, that attack the square. AND with getOccupancy(color) for one side.
+    public long attackersOf(final int squareCoordinate){
+        return attackersOf(squareCoordinate, this.allOccupancy);
+    }
+
+    // The attackers of the square if only the given squares were occupied. Removing a piece from the occupancy
+    // uncovers the sliders behind it, which is how a capture sequence on one square is played out.
+    public long attackersOf(final int squareCoordinate, final long occupancy){
+        final long queens = getPieceBitboards(Piece.PieceType.QUEEN);
+        final long attackers =
+                (LeaperAttacks.pawnAttacks(Color.BLACK, squareCoordinate) & getPieceBitboard(Color.WHITE, Piece.PieceType.PAWN)) |
+                (LeaperAttacks.pawnAttacks(Color.WHITE, squareCoordinate) & getPieceBitboard(Color.BLACK, Piece.PieceType.PAWN)) |
+                (LeaperAttacks.knightAttacks(squareCoordinate) & getPieceBitboards(Piece.PieceType.KNIGHT)) |
+                (LeaperAttacks.kingAttacks(squareCoordinate) & getPieceBitboards(Piece.PieceType.KING)) |
+                (MagicBitBoards.bishopAttacks(squareCoordinate, occupancy) & (getPieceBitboards(Piece.PieceType.BISHOP) | queens)) |
+                (MagicBitBoards.rookAttacks(squareCoordinate, occupancy) & (getPieceBitboards(Piece.PieceType.ROOK) | queens));
+        return attackers & occupancy;
+    }
+
+    public Pawn getEnPassantPawn(){
+        return this.enPassantPawn;
+    }
+
+    // The square the en passant pawn skipped over, where it can be captured, or -1 if there is none.
+    public int getEnPassantSquare(){
+        return this.enPassantPawn == null ? -1 : this.enPassantPawn.getPiecePosition() -
+               (this.enPassantPawn.getPieceColor().getDirection() * BoardUtils.NUM_SQUARES_PER_ROW);
+    }
+
+    public int getCastlingRights(){
+        return this.castlingRights;
+    }
+
+    public long getZobristHash(){
+        return this.zobristHash;
+    }
+
+    public int getHalfmoveClock(){
+        return this.halfmoveClock;
+    }
+
+    public int getFullmoveNumber(){
+        return this.fullmoveNumber;
+    }
+
     public Player whitePlayer(){
         return whitePlayer;
     }
@@ -75,20 +175,55 @@ public class Board {
         return this.currentPlayer;
     }
 
-    // For each occupied square on the board, get the activePieces.
-    private static Collection<Piece> calculateActivePieces(final List<Square> board, final Color color){
-        final List<Piece> activePieces = new ArrayList<>();
-        for(final Square square: board){
-            if(square.isSquareOccupied()){
-                final Piece piece = square.getPiece();
-                if(piece.getPieceColor() == color){
-                    activePieces.add(piece);
-                }
-            }
+    // Walk the set bits of a color's occupancy mask and collect the piece on each of those squares.
+    // Only occupied squares are visited instead of all 64.
+    private static Collection<Piece> calculateActivePieces(final List<Square> board, final long occupancy){
+        final List<Piece> activePieces = new ArrayList<>(BitBoardUtils.bitCount(occupancy));
+        for(long squares = occupancy; squares != 0; squares &= squares - 1){
+            activePieces.add(board.get(BitBoardUtils.firstSquare(squares)).getPiece());
         }
         return Collections.unmodifiableList(activePieces);
     }
 
+    // A side may still castle while its King and the Rook on that side have not moved from their home squares.
+    private static int calculateCastlingRights(final List<Square> board){
+        int castlingRights = 0;
+        if(isUnmoved(board, BoardUtils.WHITE_KING_SQUARE, Color.WHITE, Piece.PieceType.KING)){
+            if(isUnmoved(board, BoardUtils.WHITE_KING_ROOK_SQUARE, Color.WHITE, Piece.PieceType.ROOK)) castlingRights |= BoardUtils.WHITE_KING_SIDE;
+            if(isUnmoved(board, BoardUtils.WHITE_QUEEN_ROOK_SQUARE, Color.WHITE, Piece.PieceType.ROOK)) castlingRights |= BoardUtils.WHITE_QUEEN_SIDE;
+        }
+        if(isUnmoved(board, BoardUtils.BLACK_KING_SQUARE, Color.BLACK, Piece.PieceType.KING)){
+            if(isUnmoved(board, BoardUtils.BLACK_KING_ROOK_SQUARE, Color.BLACK, Piece.PieceType.ROOK)) castlingRights |= BoardUtils.BLACK_KING_SIDE;
+            if(isUnmoved(board, BoardUtils.BLACK_QUEEN_ROOK_SQUARE, Color.BLACK, Piece.PieceType.ROOK)) castlingRights |= BoardUtils.BLACK_QUEEN_SIDE;
+        }
+        return castlingRights;
+    }
+
+    private static boolean isUnmoved(final List<Square> board, final int square, final Color color, final Piece.PieceType pieceType){
+        final Piece piece = board.get(square).getPiece();
+        return piece != null && piece.getPieceColor() == color && piece.getPieceType() == pieceType && piece.isFirstMove();
+    }
+
+    // Place every piece from the builder into the bitboard of its color and type.
+    private static long[] createPieceBitboards(final Builder builder){
+        final long[] pieceBitboards = new long[BitBoardUtils.NUM_PIECE_BITBOARDS];
+        for(final Piece piece: builder.boardConfig.values()){
+            pieceBitboards[BitBoardUtils.pieceIndex(piece.getPieceColor(), piece.getPieceType())] |=
+                    BitBoardUtils.squareMask(piece.getPiecePosition());
+        }
+        return pieceBitboards;
+    }
+
+    // The union of all piece bitboards for one color.
+    private static long calculateOccupancy(final long[] pieceBitboards, final Color color){
+        final int firstIndex = color.ordinal() * BitBoardUtils.NUM_PIECE_TYPES;
+        long occupancy = BitBoardUtils.EMPTY;
+        for(int i = firstIndex; i < firstIndex + BitBoardUtils.NUM_PIECE_TYPES; i++){
+            occupancy |= pieceBitboards[i];
+        }
+        return occupancy;
+    }
+
     // Initialize the chess board for the first time.
     private static List<Square> createGameBoard(final Builder builder){
         final Square[] squares = new Square[BoardUtils.NUM_SQUARES];
@@ -156,6 +291,9 @@ public class Board {
         Map<Integer, Piece> boardConfig;
         Color nextMoveMaker;
         Pawn enPassantPawn;
+        Long zobristHash;
+        int halfmoveClock;
+        int fullmoveNumber = 1;
 
         public Builder() {
             this.boardConfig = new HashMap<>();
@@ -178,6 +316,43 @@ public class Board {
         public void setEnPassantPawn(Pawn enPassantPawn) {
             this.enPassantPawn = enPassantPawn;
         }
+
+        public Builder setHalfmoveClock(final int halfmoveClock){
+            this.halfmoveClock = halfmoveClock;
+            return this;
+        }
+
+        public Builder setFullmoveNumber(final int fullmoveNumber){
+            this.fullmoveNumber = fullmoveNumber;
+            return this;
+        }
+
+        // Only for callers that have updated the previous board's hash incrementally, like Move.execute.
+        // It must match the position being built, otherwise hash lookups will silently go wrong.
+        Builder setZobristHash(final long zobristHash){
+            this.zobristHash = zobristHash;
+            return this;
+        }
+    }
+
+    // Two boards are equal when they describe the same position: placement, side to move, castling rights
+    // and en passant square. The Zobrist keys are compared first since they almost always differ.
+    @Override
+    public boolean equals(final Object other){
+        if(this == other) return true;
+        if(!(other instanceof Board)) return false;
+
+        final Board otherBoard = (Board) other;
+        return this.zobristHash == otherBoard.zobristHash &&
+               Arrays.equals(this.pieceBitboards, otherBoard.pieceBitboards) &&
+               this.currentPlayer.getColor() == otherBoard.currentPlayer.getColor() &&
+               this.castlingRights == otherBoard.castlingRights &&
+               getEnPassantSquare() == otherBoard.getEnPassantSquare();
+    }
+
+    @Override
+    public int hashCode(){
+        return (int) (this.zobristHash ^ (this.zobristHash >>> 32));
     }
 
     // Used for early testing, will print out a board in the terminal
@@ -22,6 +22,28 @@ public class BoardUtils {
     public static final int NUM_SQUARES = 64;
     public static final int NUM_SQUARES_PER_ROW = 8;
 
+    // Castling rights, one bit each, as kept by Board and SearchBoard.
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+    public static final int ALL_CASTLING_RIGHTS = WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+
+    // Home squares of the kings and rooks.
+    public static final int BLACK_QUEEN_ROOK_SQUARE = 0;
+    public static final int BLACK_KING_SQUARE = 4;
+    public static final int BLACK_KING_ROOK_SQUARE = 7;
+    public static final int WHITE_QUEEN_ROOK_SQUARE = 56;
+    public static final int WHITE_KING_SQUARE = 60;
+    public static final int WHITE_KING_ROOK_SQUARE = 63;
+
+    // ANDed into the castling rights for the origin and destination of every move.
+    // Moving a king or rook off its home square, or capturing a rook on it, clears the matching rights.
+    private static final int[] CASTLING_RIGHTS_MASK = initCastlingRightsMask();
+
+    // Algebraic names of the squares in coordinate order, a8 first and h1 last.
+    private static final String[] ALGEBRAIC_NOTATION = initAlgebraicNotation();
+
     private BoardUtils(){
         throw new RuntimeException("You cannot instantiate this class");
     }
@@ -46,6 +68,43 @@ public class BoardUtils {
         return row;
     }
 
+    private static int[] initCastlingRightsMask(){
+        final int[] mask = new int[NUM_SQUARES];
+        for(int square = 0; square < NUM_SQUARES; square++){
+            mask[square] = ALL_CASTLING_RIGHTS;
+        }
+        mask[WHITE_KING_SQUARE] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        mask[WHITE_KING_ROOK_SQUARE] &= ~WHITE_KING_SIDE;
+        mask[WHITE_QUEEN_ROOK_SQUARE] &= ~WHITE_QUEEN_SIDE;
+        mask[BLACK_KING_SQUARE] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        mask[BLACK_KING_ROOK_SQUARE] &= ~BLACK_KING_SIDE;
+        mask[BLACK_QUEEN_ROOK_SQUARE] &= ~BLACK_QUEEN_SIDE;
+        return mask;
+    }
+
+    // The castling rights left after a move from one square to another.
+    public static int updateCastlingRights(final int castlingRights, final int from, final int to){
+        return castlingRights & CASTLING_RIGHTS_MASK[from] & CASTLING_RIGHTS_MASK[to];
+    }
+
+    private static String[] initAlgebraicNotation(){
+        final String[] notation = new String[NUM_SQUARES];
+        for(int i = 0; i < NUM_SQUARES; i++){
+            notation[i] = "" + (char) ('a' + i % NUM_SQUARES_PER_ROW) + (NUM_SQUARES_PER_ROW - i / NUM_SQUARES_PER_ROW);
+        }
+        return notation;
+    }
+
+    // The algebraic name of a coordinate, e.g. 0 is "a8" and 63 is "h1".
+    public static String getPositionAtCoordinate(final int coordinate){
+        return ALGEBRAIC_NOTATION[coordinate];
+    }
+
+    // The coordinate of an algebraic square name, e.g. "e4" is 36.
+    public static int getCoordinateAtPosition(final String position){
+        return (NUM_SQUARES_PER_ROW - (position.charAt(1) - '0')) * NUM_SQUARES_PER_ROW + (position.charAt(0) - 'a');
+    }
+
     // Check to see if the coordinate is out of bounds.
     public static boolean isValidSquareCoordinate(final int coordinate) {
         return coordinate >= 0 && coordinate < 64;
@@ -0,0 +1,72 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Color;
+import com.chess.engine.pieces.Piece.PieceType;
+
+// Precomputed attack masks for the non-sliding pieces: Knights, Kings and Pawn captures.
+// The tables are built once at class load, so the column edge cases are only ever worked out here.
+// Move generation and "is this square attacked by ..." queries are then a single table lookup.
+public class LeaperAttacks {
+
+    private static final int[][] KNIGHT_OFFSETS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] KING_OFFSETS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+    private static final long[] KNIGHT_ATTACKS = initAttacks(KNIGHT_OFFSETS);
+    private static final long[] KING_ATTACKS = initAttacks(KING_OFFSETS);
+
+    // Pawn captures depend on color. White moves towards row 0, Black towards row 7, see Color.getDirection().
+    private static final long[][] PAWN_ATTACKS = {
+            initAttacks(new int[][]{{Color.WHITE.getDirection(), -1}, {Color.WHITE.getDirection(), 1}}),
+            initAttacks(new int[][]{{Color.BLACK.getDirection(), -1}, {Color.BLACK.getDirection(), 1}})
+    };
+
+    private LeaperAttacks(){
+        throw new RuntimeException("You cannot instantiate this class");
+    }
+
+    public static long knightAttacks(final int squareCoordinate){
+        return KNIGHT_ATTACKS[squareCoordinate];
+    }
+
+    public static long kingAttacks(final int squareCoordinate){
+        return KING_ATTACKS[squareCoordinate];
+    }
+
+    // The squares a Pawn of the given color attacks diagonally from the given square.
+    public static long pawnAttacks(final Color pawnColor, final int squareCoordinate){
+        return PAWN_ATTACKS[pawnColor.ordinal()][squareCoordinate];
+    }
+
+    public static boolean isAttackedByKnight(final Board board, final int squareCoordinate, final Color attackerColor){
+        return (KNIGHT_ATTACKS[squareCoordinate] & board.getPieceBitboard(attackerColor, PieceType.KNIGHT)) != 0;
+    }
+
+    public static boolean isAttackedByKing(final Board board, final int squareCoordinate, final Color attackerColor){
+        return (KING_ATTACKS[squareCoordinate] & board.getPieceBitboard(attackerColor, PieceType.KING)) != 0;
+    }
+
+    // Work backwards from the target: a pawn of the attacking color attacks this square exactly when it stands
+    // on a square that a pawn of the other color on the target square would attack.
+    public static boolean isAttackedByPawn(final Board board, final int squareCoordinate, final Color attackerColor){
+        final Color defenderColor = attackerColor.isWhite() ? Color.BLACK : Color.WHITE;
+        return (pawnAttacks(defenderColor, squareCoordinate) & board.getPieceBitboard(attackerColor, PieceType.PAWN)) != 0;
+    }
+
+    // For every square, apply each (row, column) offset and keep the targets that stay on the board.
+    private static long[] initAttacks(final int[][] offsets){
+        final long[] attacks = new long[BoardUtils.NUM_SQUARES];
+        for(int square = 0; square < BoardUtils.NUM_SQUARES; square++){
+            final int row = square / BoardUtils.NUM_SQUARES_PER_ROW;
+            final int column = square % BoardUtils.NUM_SQUARES_PER_ROW;
+            for(final int[] offset: offsets){
+                final int targetRow = row + offset[0];
+                final int targetColumn = column + offset[1];
+                if(targetRow >= 0 && targetRow < BoardUtils.NUM_SQUARES_PER_ROW &&
+                   targetColumn >= 0 && targetColumn < BoardUtils.NUM_SQUARES_PER_ROW){
+                    attacks[square] |= BitBoardUtils.squareMask(targetRow * BoardUtils.NUM_SQUARES_PER_ROW + targetColumn);
+                }
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,157 @@
+package com.chess.engine.board;
+
+// Precomputed sliding attack tables for Bishops, Rooks and Queens using magic bitboards.
+// For every square we keep the mask of squares whose occupancy can block a ray (the board edges never can),
+// a magic multiplier and a shift. Multiplying the masked occupancy by the magic and shifting the product
+// maps every possible blocker set to a unique slot in that square's attack table.
+// A slider's full attack set therefore costs one AND, one multiply, one shift and one lookup.
+// The magics below were found by a sparse random search for our square layout (0 = a8, 63 = h1).
+// Searching for them at class load takes far longer than filling the tables, so they are kept as constants.
+public class MagicBitBoards {
+
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    private static final long[] BISHOP_MAGICS = {
+            0x0020428400408200L, 0x0004100440408000L, 0x82041C2482010010L, 0x0484142D80000000L,
+            0x0002021008101042L, 0x4200882008014100L, 0x0004A81108200000L, 0x0001004802011100L,
+            0x1040401024010048L, 0x0042041004204881L, 0x2008110810810020L, 0x240008060440C288L,
+            0x0021020210050020L, 0x0022810402408800L, 0x802060410420A042L, 0x0081020086481280L,
+            0x4110400860C10400L, 0x20040021240C0240L, 0x4802044104040080L, 0x00008868020042C0L,
+            0x0002204400A00002L, 0x2820408488084000L, 0x08006024041C0420L, 0x4102088190808810L,
+            0x0102201040094200L, 0xAB0A0814203800A0L, 0x4044209010008080L, 0x2020120000400440L,
+            0x4400840034802011L, 0x425051000600A200L, 0x412094012A010410L, 0x08084080A04C0440L,
+            0x0304022241C10401L, 0x0200841000210200L, 0x0602004100100100L, 0x0C04020081080080L,
+            0x00A0040400004102L, 0x30348102000100A2L, 0x10041401700C0500L, 0x8000840282424212L,
+            0x0810822110002000L, 0x00204814500084A4L, 0x0002022228009410L, 0x200000420080A810L,
+            0x0000200411108400L, 0x8240100400400020L, 0x01A4108404442100L, 0x0A020A0201A20209L,
+            0x00010C0920881A42L, 0x022104022202A400L, 0x80000022011008A0L, 0x5000441020884001L,
+            0x1001001202020008L, 0x4808202102308024L, 0x4008023004051104L, 0x44040802004E0800L,
+            0x000040A210066040L, 0x000002060A01050DL, 0x52A0040106431002L, 0x0000040200841C08L,
+            0xF000010828030409L, 0x0041201120190500L, 0x0404082081122212L, 0x000408009C008200L
+    };
+
+    private static final long[] ROOK_MAGICS = {
+            0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+            0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+            0x0000800080204001L, 0x1000804000802001L, 0x8240801000200080L, 0x8F80801000800801L,
+            0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+            0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+            0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+            0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0001002100081000L,
+            0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+            0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+            0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+            0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+            0x0008000500090010L, 0x0082009084020008L, 0x01818902102C0008L, 0x8308408041020004L,
+            0x0200860C20410200L, 0x6020200090400080L, 0x0800900020008280L, 0x0000100020090100L,
+            0x0400800400080280L, 0x0050044010200801L, 0x0101004406000B00L, 0xC100066400870200L,
+            0x440680014012A501L, 0x1023012082044112L, 0x00804080200A0012L, 0x000420310A004A42L,
+            0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+
+    private static final long[] BISHOP_MASKS = new long[BoardUtils.NUM_SQUARES];
+    private static final int[] BISHOP_SHIFTS = new int[BoardUtils.NUM_SQUARES];
+    private static final long[][] BISHOP_ATTACKS = new long[BoardUtils.NUM_SQUARES][];
+
+    private static final long[] ROOK_MASKS = new long[BoardUtils.NUM_SQUARES];
+    private static final int[] ROOK_SHIFTS = new int[BoardUtils.NUM_SQUARES];
+    private static final long[][] ROOK_ATTACKS = new long[BoardUtils.NUM_SQUARES][];
+
+    static {
+        for(int square = 0; square < BoardUtils.NUM_SQUARES; square++){
+            initSquare(square, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS[square], BISHOP_SHIFTS, BISHOP_ATTACKS);
+            initSquare(square, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS[square], ROOK_SHIFTS, ROOK_ATTACKS);
+        }
+    }
+
+    private MagicBitBoards(){
+        throw new RuntimeException("You cannot instantiate this class");
+    }
+
+    // All squares a Bishop on the given square attacks, including the first blocker on each ray, whatever its color.
+    public static long bishopAttacks(final int squareCoordinate, final long occupancy){
+        return BISHOP_ATTACKS[squareCoordinate][(int) (((occupancy & BISHOP_MASKS[squareCoordinate]) *
+                BISHOP_MAGICS[squareCoordinate]) >>> BISHOP_SHIFTS[squareCoordinate])];
+    }
+
+    // All squares a Rook on the given square attacks, including the first blocker on each ray, whatever its color.
+    public static long rookAttacks(final int squareCoordinate, final long occupancy){
+        return ROOK_ATTACKS[squareCoordinate][(int) (((occupancy & ROOK_MASKS[squareCoordinate]) *
+                ROOK_MAGICS[squareCoordinate]) >>> ROOK_SHIFTS[squareCoordinate])];
+    }
+
+    // A Queen is the union of a Rook and a Bishop on the same square.
+    public static long queenAttacks(final int squareCoordinate, final long occupancy){
+        return bishopAttacks(squareCoordinate, occupancy) | rookAttacks(squareCoordinate, occupancy);
+    }
+
+    // Build the mask and fill the attack table for one square and one slider type.
+    private static void initSquare(final int square,
+                                   final int[][] directions,
+                                   final long[] masks,
+                                   final long magic,
+                                   final int[] shifts,
+                                   final long[][] attackTables){
+        final long mask = relevantOccupancyMask(square, directions);
+        final int relevantBits = BitBoardUtils.bitCount(mask);
+        final int shift = Long.SIZE - relevantBits;
+        final long[] table = new long[1 << relevantBits];
+
+        // Enumerate every subset of the mask (Carry-Rippler) and store the attack set it produces.
+        long subset = BitBoardUtils.EMPTY;
+        do{
+            final int index = (int) ((subset * magic) >>> shift);
+            final long attacks = slidingAttacks(square, subset, directions);
+            // Two blocker sets may share a slot only if they produce the same attacks.
+            if(table[index] != BitBoardUtils.EMPTY && table[index] != attacks){
+                throw new RuntimeException("Invalid magic for square " + square);
+            }
+            table[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while(subset != BitBoardUtils.EMPTY);
+
+        masks[square] = mask;
+        shifts[square] = shift;
+        attackTables[square] = table;
+    }
+
+    // Squares along each ray that can hold a blocker. The last square before the edge is left out,
+    // since a piece there cannot hide anything further along the ray.
+    private static long relevantOccupancyMask(final int square, final int[][] directions){
+        long mask = BitBoardUtils.EMPTY;
+        for(final int[] direction: directions){
+            int row = square / BoardUtils.NUM_SQUARES_PER_ROW + direction[0];
+            int column = square % BoardUtils.NUM_SQUARES_PER_ROW + direction[1];
+            while(isOnBoard(row + direction[0], column + direction[1])){
+                mask |= BitBoardUtils.squareMask(row * BoardUtils.NUM_SQUARES_PER_ROW + column);
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    // The slow ray walk, only used while building the tables.
+    private static long slidingAttacks(final int square, final long occupancy, final int[][] directions){
+        long attacks = BitBoardUtils.EMPTY;
+        for(final int[] direction: directions){
+            int row = square / BoardUtils.NUM_SQUARES_PER_ROW + direction[0];
+            int column = square % BoardUtils.NUM_SQUARES_PER_ROW + direction[1];
+            while(isOnBoard(row, column)){
+                final long squareBit = BitBoardUtils.squareMask(row * BoardUtils.NUM_SQUARES_PER_ROW + column);
+                attacks |= squareBit;
+                if((occupancy & squareBit) != 0){
+                    break;
+                }
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean isOnBoard(final int row, final int column){
+        return row >= 0 && row < BoardUtils.NUM_SQUARES_PER_ROW && column >= 0 && column < BoardUtils.NUM_SQUARES_PER_ROW;
+    }
+}
@@ -1,8 +1,14 @@
 package com.chess.engine.board;
 
+import com.chess.engine.Color;
+import com.chess.engine.pieces.Bishop;
+import com.chess.engine.pieces.Knight;
 import com.chess.engine.pieces.Pawn;
 import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+import com.chess.engine.pieces.Queen;
 import com.chess.engine.pieces.Rook;
+import com.chess.engine.player.Player;
 
 import static com.chess.engine.board.Board.*;
 
@@ -41,6 +47,18 @@ public abstract class Move {
                getMovedPiece().equals(otherMove.getMovedPiece());
     }
                                               
+    // Coordinate notation, e.g. "e2e4". Castles print as "O-O" and "O-O-O".
+    @Override
+    public String toString(){
+        return BoardUtils.getPositionAtCoordinate(getCurrentCoordinate()) +
+               BoardUtils.getPositionAtCoordinate(this.destinationCoordinate);
+    }
+
+    // The position the move is played in.
+    public Board getBoard(){
+        return this.board;
+    }
+
     public int getCurrentCoordinate(){
         return  this.movedPiece.getPiecePosition();
     }
@@ -84,9 +102,42 @@ public abstract class Move {
         // Move the moved Piece
         builder.setPiece(this.movedPiece.movePiece(this));
         builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
+        builder.setZobristHash(calculateZobristHash());
+        setMoveClocks(builder);
         return builder.build();
     }
 
+    // A pawn move or a capture restarts the fifty-move count, and Black's move completes a full move.
+    void setMoveClocks(final Builder builder){
+        final boolean resetsClock = this.movedPiece.getPieceType() == PieceType.PAWN || isAttack();
+        builder.setHalfmoveClock(resetsClock ? 0 : this.board.getHalfmoveClock() + 1);
+        builder.setFullmoveNumber(this.board.getFullmoveNumber() + (this.movedPiece.getPieceColor().isWhite() ? 0 : 1));
+    }
+
+    // The Zobrist hash of the board this move leads to, updated from the current board's hash.
+    // XOR out the moved piece on its origin and any captured piece, XOR in the moved piece on its destination,
+    // then swap the castling, en passant and side to move keys for the new ones.
+    long calculateZobristHash(){
+        final Color moverColor = this.movedPiece.getPieceColor();
+        final Color opponentColor = moverColor.isWhite() ? Color.BLACK : Color.WHITE;
+        final int currentCoordinate = getCurrentCoordinate();
+        final int castlingRights = this.board.getCastlingRights();
+
+        long hash = this.board.getZobristHash();
+        hash ^= Zobrist.pieceKey(moverColor, this.movedPiece.getPieceType(), currentCoordinate);
+        hash ^= Zobrist.pieceKey(moverColor, this.movedPiece.getPieceType(), this.destinationCoordinate);
+        final Piece attackedPiece = getAttackedPiece();
+        if(attackedPiece != null){
+            hash ^= Zobrist.pieceKey(attackedPiece.getPieceColor(), attackedPiece.getPieceType(), attackedPiece.getPiecePosition());
+        }
+        hash ^= Zobrist.castlingKey(castlingRights) ^
+                Zobrist.castlingKey(BoardUtils.updateCastlingRights(castlingRights, currentCoordinate, this.destinationCoordinate));
+        hash ^= Zobrist.enPassantKey(this.board.getEnPassantSquare(), moverColor,
+                                     this.board.getPieceBitboard(moverColor, PieceType.PAWN));
+        hash ^= Zobrist.sideToMoveKey(moverColor) ^ Zobrist.sideToMoveKey(opponentColor);
+        return hash;
+    }
+
     // If the move we wish to make is to an unoccupied square
     public static final class NormalMove extends Move{
         public NormalMove(final Board board,
@@ -121,11 +172,6 @@ public abstract class Move {
             return super.equals(otherAttackingMove) && getAttackedPiece().equals(otherAttackingMove.getAttackedPiece());
         }
 
-        @Override
-        public Board execute() {
-            return null;
-        }
-
         @Override
         public boolean isAttack(){
             return true;
@@ -161,6 +207,111 @@ public abstract class Move {
                                        final Piece attackedPiece){
             super(board, movedPiece, destinationCoordinate, attackedPiece);
         }
+
+        // The captured pawn is not on the destination square, so it has to be left out explicitly.
+        @Override
+        public Board execute(){
+            final Builder builder = new Builder();
+            for(final Piece piece: this.board.currentPlayer().getActivePieces()){
+                if(!this.movedPiece.equals(piece)){
+                    builder.setPiece(piece);
+                }
+            }
+            for(final Piece piece: this.board.currentPlayer().getOpponent().getActivePieces()){
+                if(!piece.equals(this.getAttackedPiece())){
+                    builder.setPiece(piece);
+                }
+            }
+            builder.setPiece(this.movedPiece.movePiece(this));
+            builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
+            builder.setZobristHash(calculateZobristHash());
+            setMoveClocks(builder);
+            return builder.build();
+        }
+    }
+
+    // A pawn move or capture onto the last rank. We decorate the underlying move and replace the pawn
+    // with the promotion piece on the destination square.
+    public static final class PawnPromotion extends Move{
+        final Move decoratedMove;
+        final PieceType promotionType;
+
+        public PawnPromotion(final Move decoratedMove,
+                             final PieceType promotionType){
+            super(decoratedMove.board, decoratedMove.getMovedPiece(), decoratedMove.getDestinationCoordinate());
+            this.decoratedMove = decoratedMove;
+            this.promotionType = promotionType;
+        }
+
+        @Override
+        public int hashCode(){
+            return this.decoratedMove.hashCode() + 31 * this.promotionType.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object other){
+            if(this == other) return true;
+            if(!(other instanceof PawnPromotion)) return false;
+            final PawnPromotion otherPromotion = (PawnPromotion) other;
+            return this.decoratedMove.equals(otherPromotion.decoratedMove) && this.promotionType == otherPromotion.promotionType;
+        }
+
+        public PieceType getPromotionType(){
+            return this.promotionType;
+        }
+
+        @Override
+        public String toString(){
+            return super.toString() + this.promotionType.toString().toLowerCase();
+        }
+
+        @Override
+        public boolean isAttack(){
+            return this.decoratedMove.isAttack();
+        }
+
+        @Override
+        public Piece getAttackedPiece(){
+            return this.decoratedMove.getAttackedPiece();
+        }
+
+        @Override
+        public Board execute(){
+            final Builder builder = new Builder();
+            for(final Piece piece: this.board.currentPlayer().getActivePieces()){
+                if(!this.movedPiece.equals(piece)){
+                    builder.setPiece(piece);
+                }
+            }
+            // A captured piece on the destination square is overwritten by the promotion piece.
+            for(final Piece piece: this.board.currentPlayer().getOpponent().getActivePieces()){
+                builder.setPiece(piece);
+            }
+            builder.setPiece(createPromotionPiece(this.promotionType, this.movedPiece.getPieceColor(), this.destinationCoordinate));
+            builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
+            builder.setZobristHash(calculateZobristHash());
+            setMoveClocks(builder);
+            return builder.build();
+        }
+
+        // The piece arriving on the destination is the promotion piece, not the pawn.
+        @Override
+        long calculateZobristHash(){
+            final Color color = this.movedPiece.getPieceColor();
+            return super.calculateZobristHash() ^
+                   Zobrist.pieceKey(color, PieceType.PAWN, this.destinationCoordinate) ^
+                   Zobrist.pieceKey(color, this.promotionType, this.destinationCoordinate);
+        }
+
+        private static Piece createPromotionPiece(final PieceType promotionType, final Color color, final int coordinate){
+            switch(promotionType){
+                case ROOK: return new Rook(color, coordinate, false);
+                case BISHOP: return new Bishop(color, coordinate, false);
+                case KNIGHT: return new Knight(color, coordinate, false);
+                case QUEEN: return new Queen(color, coordinate, false);
+                default: throw new RuntimeException("A pawn cannot promote to " + promotionType);
+            }
+        }
     }
 
     public static final class PawnJump extends Move{
@@ -185,8 +336,19 @@ public abstract class Move {
             builder.setPiece(movedPawn);
             builder.setEnPassantPawn(movedPawn);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
+            builder.setZobristHash(calculateZobristHash());
+            setMoveClocks(builder);
             return builder.build();
         }
+
+        // After a jump the skipped square becomes the opponent's en passant square.
+        @Override
+        long calculateZobristHash(){
+            final Color opponentColor = this.movedPiece.getPieceColor().isWhite() ? Color.BLACK : Color.WHITE;
+            final int enPassantSquare = (getCurrentCoordinate() + this.destinationCoordinate) / 2;
+            return super.calculateZobristHash() ^
+                   Zobrist.enPassantKey(enPassantSquare, opponentColor, this.board.getPieceBitboard(opponentColor, PieceType.PAWN));
+        }
     }
 
     static abstract class CastleMove extends Move{
@@ -228,11 +390,21 @@ public abstract class Move {
                 builder.setPiece(piece);
             }
             builder.setPiece(this.movedPiece.movePiece(this));
-            //TODO: check if it's been moved before? ie first move.
-            builder.setPiece(new Rook(this.castleRook.getPieceColor(), this.castleRookDestination));
+            builder.setPiece(new Rook(this.castleRook.getPieceColor(), this.castleRookDestination, false));
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
+            builder.setZobristHash(calculateZobristHash());
+            setMoveClocks(builder);
             return builder.build();
         }
+
+        // The Rook moves as well.
+        @Override
+        long calculateZobristHash(){
+            final Color color = this.castleRook.getPieceColor();
+            return super.calculateZobristHash() ^
+                   Zobrist.pieceKey(color, PieceType.ROOK, this.castleRookStart) ^
+                   Zobrist.pieceKey(color, PieceType.ROOK, this.castleRookDestination);
+        }
     }
 
     public static final class KingSideCastleMove extends CastleMove{
@@ -276,6 +448,11 @@ public abstract class Move {
         public Board execute(){
             throw new RuntimeException("Cannot execute the null move!");
         }
+
+        @Override
+        public String toString(){
+            return "Null Move";
+        }
     }
 
     public static class MoveFactory{
@@ -283,16 +460,52 @@ public abstract class Move {
             throw new RuntimeException("Not instantiable!");
         }
 
+        // The legal move between two squares, of whichever player owns the piece on the first square,
+        // or NULL_MOVE. A lookup in the player's move index, see Player.getLegalMove. Promotions are to a Queen.
         public static Move createMove(final Board board,
                                       final int currentCoordinate,
                                       final int destinationCoordinate){
-            for(final Move move: board.getAllLegalMoves()){
-                if(move.getCurrentCoordinate() == currentCoordinate &&
-                   move.getDestinationCoordinate() == destinationCoordinate){
-                    return move;
-                }
+            return createMove(board, currentCoordinate, destinationCoordinate, null);
+        }
+
+        public static Move createMove(final Board board,
+                                      final int currentCoordinate,
+                                      final int destinationCoordinate,
+                                      final PieceType promotionType){
+            final Piece movedPiece = board.getSquare(currentCoordinate).getPiece();
+            if(movedPiece == null){
+                return NULL_MOVE;
+            }
+            final Player player = movedPiece.getPieceColor().isWhite() ? board.whitePlayer() : board.blackPlayer();
+            return player.getLegalMove(currentCoordinate, destinationCoordinate, promotionType);
+        }
+
+        // Materialise a packed move, as generated by a SearchBoard in the same position as the board.
+        public static Move createMove(final Board board, final int packedMove){
+            final int currentCoordinate = PackedMove.getFrom(packedMove);
+            final int destinationCoordinate = PackedMove.getTo(packedMove);
+            final Piece movedPiece = board.getSquare(currentCoordinate).getPiece();
+            final Piece attackedPiece = board.getSquare(destinationCoordinate).getPiece();
+            final Move move;
+            if(PackedMove.isCastle(packedMove)){
+                final boolean isKingSide = destinationCoordinate > currentCoordinate;
+                final int rookStart = isKingSide ? currentCoordinate + 3 : currentCoordinate - 4;
+                final int rookDestination = isKingSide ? currentCoordinate + 1 : currentCoordinate - 1;
+                final Rook rook = (Rook) board.getSquare(rookStart).getPiece();
+                move = isKingSide ? new KingSideCastleMove(board, movedPiece, destinationCoordinate, rook, rookStart, rookDestination) :
+                                    new QueenSideCastleMove(board, movedPiece, destinationCoordinate, rook, rookStart, rookDestination);
+            } else if(PackedMove.isEnPassant(packedMove)){
+                move = new PawnEnPassantAttackMove(board, movedPiece, destinationCoordinate, board.getEnPassantPawn());
+            } else if(PackedMove.isDoublePush(packedMove)){
+                move = new PawnJump(board, movedPiece, destinationCoordinate);
+            } else if(movedPiece.getPieceType() == PieceType.PAWN){
+                move = attackedPiece != null ? new PawnAttackMove(board, movedPiece, destinationCoordinate, attackedPiece) :
+                                               new PawnMove(board, movedPiece, destinationCoordinate);
+            } else{
+                move = attackedPiece != null ? new AttackingMove(board, movedPiece, destinationCoordinate, attackedPiece) :
+                                               new NormalMove(board, movedPiece, destinationCoordinate);
             }
-            return NULL_MOVE;
+            return PackedMove.isPromotion(packedMove) ? new PawnPromotion(move, PackedMove.getPromotionType(packedMove)) : move;
         }
     }
 }
@@ -0,0 +1,74 @@
+package com.chess.engine.board;
+
+import com.chess.engine.pieces.Piece.PieceType;
+
+// A move packed into a single int, for search code that cannot afford a Move object per generated move.
+// Bits 0-5 origin, 6-11 destination, 12-15 moved piece, 16-19 captured piece + 1 (0 when nothing is captured),
+// 20 castle, 21 en passant, 22 pawn double push, 23 promotion, 24-26 the PieceType ordinal promoted to.
+// Pieces are BitBoardUtils.pieceIndex slots, as in SearchBoard. Two moves are the same move exactly when their ints are equal.
+// Move objects are only created from these at the API boundary, see Move.MoveFactory.createMove(Board, int).
+public final class PackedMove {
+
+    // No real move has the same origin and destination, so zero can never be a move.
+    public static final int NO_MOVE = 0;
+
+    public static final int CASTLE_FLAG = 1 << 20;
+    public static final int EN_PASSANT_FLAG = 1 << 21;
+    public static final int DOUBLE_PUSH_FLAG = 1 << 22;
+    public static final int PROMOTION_FLAG = 1 << 23;
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private PackedMove(){
+        throw new RuntimeException("You cannot instantiate this class");
+    }
+
+    // Pass SearchBoard.NO_PIECE as the captured piece for a move that does not capture.
+    public static int create(final int from, final int to, final int movedPiece, final int capturedPiece, final int flags){
+        return from | (to << 6) | (movedPiece << 12) | ((capturedPiece + 1) << 16) | flags;
+    }
+
+    public static int createPromotion(final int from, final int to, final int movedPiece, final int capturedPiece,
+                                      final PieceType promotionType){
+        return create(from, to, movedPiece, capturedPiece, PROMOTION_FLAG) | (promotionType.ordinal() << 24);
+    }
+
+    // Getters
+    public static int getFrom(final int move){
+        return move & 0x3F;
+    }
+    public static int getTo(final int move){
+        return (move >>> 6) & 0x3F;
+    }
+    public static int getMovedPiece(final int move){
+        return (move >>> 12) & 0xF;
+    }
+    public static int getCapturedPiece(final int move){
+        return ((move >>> 16) & 0xF) - 1;
+    }
+    public static PieceType getPromotionType(final int move){
+        return isPromotion(move) ? PIECE_TYPES[(move >>> 24) & 0x7] : null;
+    }
+    public static boolean isCapture(final int move){
+        return (move & 0xF0000) != 0;
+    }
+    public static boolean isCastle(final int move){
+        return (move & CASTLE_FLAG) != 0;
+    }
+    public static boolean isEnPassant(final int move){
+        return (move & EN_PASSANT_FLAG) != 0;
+    }
+    public static boolean isDoublePush(final int move){
+        return (move & DOUBLE_PUSH_FLAG) != 0;
+    }
+    public static boolean isPromotion(final int move){
+        return (move & PROMOTION_FLAG) != 0;
+    }
+
+    // Coordinate notation, e.g. "e2e4" or "e7e8q".
+    public static String toNotation(final int move){
+        final String notation = BoardUtils.getPositionAtCoordinate(getFrom(move)) +
+                                BoardUtils.getPositionAtCoordinate(getTo(move));
+        return isPromotion(move) ? notation + getPromotionType(move).toString().toLowerCase() : notation;
+    }
+}
@@ -0,0 +1,46 @@
+package com.chess.engine.board;
+
+// Precomputed lines between pairs of squares, for pin and check detection.
+// Both tables are empty for two squares that do not share a rank, file or diagonal.
+public class RayTables {
+
+    // The squares strictly between two squares on a common line.
+    private static final long[][] BETWEEN = new long[BoardUtils.NUM_SQUARES][BoardUtils.NUM_SQUARES];
+    // The whole line through two squares, from board edge to board edge.
+    private static final long[][] LINE = new long[BoardUtils.NUM_SQUARES][BoardUtils.NUM_SQUARES];
+
+    static {
+        for(int from = 0; from < BoardUtils.NUM_SQUARES; from++){
+            final long fromBit = BitBoardUtils.squareMask(from);
+            for(int to = 0; to < BoardUtils.NUM_SQUARES; to++){
+                final long toBit = BitBoardUtils.squareMask(to);
+                if(from == to){
+                    continue;
+                }
+                // Two sliders on a common line see each other on an empty board. With only the other square occupied,
+                // their attack sets overlap exactly on the squares in between.
+                if((MagicBitBoards.rookAttacks(from, BitBoardUtils.EMPTY) & toBit) != 0){
+                    BETWEEN[from][to] = MagicBitBoards.rookAttacks(from, toBit) & MagicBitBoards.rookAttacks(to, fromBit);
+                    LINE[from][to] = (MagicBitBoards.rookAttacks(from, BitBoardUtils.EMPTY) &
+                                      MagicBitBoards.rookAttacks(to, BitBoardUtils.EMPTY)) | fromBit | toBit;
+                } else if((MagicBitBoards.bishopAttacks(from, BitBoardUtils.EMPTY) & toBit) != 0){
+                    BETWEEN[from][to] = MagicBitBoards.bishopAttacks(from, toBit) & MagicBitBoards.bishopAttacks(to, fromBit);
+                    LINE[from][to] = (MagicBitBoards.bishopAttacks(from, BitBoardUtils.EMPTY) &
+                                      MagicBitBoards.bishopAttacks(to, BitBoardUtils.EMPTY)) | fromBit | toBit;
+                }
+            }
+        }
+    }
+
+    private RayTables(){
+        throw new RuntimeException("You cannot instantiate this class");
+    }
+
+    public static long between(final int from, final int to){
+        return BETWEEN[from][to];
+    }
+
+    public static long line(final int from, final int to){
+        return LINE[from][to];
+    }
+}
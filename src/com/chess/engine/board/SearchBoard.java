@@ -0,0 +1,669 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Color;
+import com.chess.engine.pieces.Bishop;
+import com.chess.engine.pieces.King;
+import com.chess.engine.pieces.Knight;
+import com.chess.engine.pieces.Pawn;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+import com.chess.engine.pieces.Queen;
+import com.chess.engine.pieces.Rook;
+
+import java.util.Arrays;
+
+import static com.chess.engine.board.BoardUtils.*;
+
+// An opt-in mutable board for search.
+// Board is immutable, so every Move.execute() copies all the pieces into a new Builder and constructs a new Board.
+// That is what the GUI wants, but a search visiting millions of nodes cannot afford it.
+// A SearchBoard is created once from a Board, then moves are made and unmade in place.
+// Everything needed to take a move back is pushed onto an undo stack, which grows on demand up to MAX_GAME_PLY.
+// Once a line has reached its deepest ply, makeMove/unmakeMove no longer allocate.
+// Pieces are stored as ints: color.ordinal() * 6 + pieceType.ordinal(), the same slots as BitBoardUtils.pieceIndex.
+public final class SearchBoard {
+
+    public static final int NO_PIECE = -1;
+    public static final int NO_SQUARE = -1;
+
+    // The deepest line of moves that can be made from the starting position before the undo stack is full.
+    public static final int MAX_GAME_PLY = 1024;
+    private static final int INITIAL_UNDO_CAPACITY = 64;
+
+    private static final Color[] COLORS = Color.values();
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    // The most moves any legal position has is 218, so a move list of this length never overflows.
+    public static final int MAX_MOVES = 256;
+
+    private static final int ROOK = PieceType.ROOK.ordinal();
+    private static final int KNIGHT = PieceType.KNIGHT.ordinal();
+    private static final int BISHOP = PieceType.BISHOP.ordinal();
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+    private static final int PAWN = PieceType.PAWN.ordinal();
+
+    private static final PieceType[] PROMOTION_TYPES = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    // Per color: the rank a pawn jumps from, and the rank it promotes on.
+    private static final long[] PAWN_START_RANKS = {BitBoardUtils.SECOND_RANK, BitBoardUtils.SEVENTH_RANK};
+    private static final long[] PROMOTION_RANKS = {BitBoardUtils.EIGHTH_RANK, BitBoardUtils.FIRST_RANK};
+
+    // Undo records keep the move and the state it overwrote, packed into one int:
+    // bits 0-5 origin, 6-11 destination, 12-15 captured piece + 1, 16-19 castling rights,
+    // 20-26 en passant square + 1, 27 castle flag, 28 en passant flag, 29 promotion flag.
+    private static final int CASTLE_FLAG = 1 << 27;
+    private static final int EN_PASSANT_FLAG = 1 << 28;
+    private static final int PROMOTION_FLAG = 1 << 29;
+
+    private final long[] pieceBitboards = new long[BitBoardUtils.NUM_PIECE_BITBOARDS];
+    private final long[] occupancy = new long[COLORS.length];
+    private final int[] mailbox = new int[BoardUtils.NUM_SQUARES];
+
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfmoveClock;
+    private long zobristHash;
+    // The Zobrist keys of the pawns alone, which identify the pawn structure for a pawn hash table.
+    private long pawnHash;
+    // Running tapered evaluation terms, White's minus Black's, kept up to date piece by piece like the hash.
+    private int middlegameScore;
+    private int endgameScore;
+    private int gamePhase;
+
+    // The undo stack starts small and doubles when full, up to MAX_GAME_PLY. A board made only to generate
+    // the moves of one position, as Player does, then costs little more than its bitboards.
+    private int[] undoRecords = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoHalfmoveClocks = new int[INITIAL_UNDO_CAPACITY];
+    private long[] undoHashes = new long[INITIAL_UNDO_CAPACITY];
+    private int ply;
+
+    public SearchBoard(final Board board){
+        this(board, board.currentPlayer().getColor());
+    }
+
+    // An empty board with White to move, for positions set up piece by piece with setPosition.
+    public SearchBoard(){
+        Arrays.fill(this.mailbox, NO_PIECE);
+        this.enPassantSquare = NO_SQUARE;
+    }
+
+    // A board with the given side to move. Board keeps legal moves for both of its players,
+    // so this is how the player not on move gets its moves generated too.
+    // Only the side actually on move can capture en passant.
+    public SearchBoard(final Board board, final Color sideToMove){
+        for(int square = 0; square < BoardUtils.NUM_SQUARES; square++){
+            this.mailbox[square] = NO_PIECE;
+        }
+        for(final Color color: COLORS){
+            for(final PieceType pieceType: PIECE_TYPES){
+                final int piece = BitBoardUtils.pieceIndex(color, pieceType);
+                final long bitboard = board.getPieceBitboard(color, pieceType);
+                this.pieceBitboards[piece] = bitboard;
+                this.occupancy[color.ordinal()] |= bitboard;
+                for(long squares = bitboard; squares != 0; squares &= squares - 1){
+                    final int square = BitBoardUtils.firstSquare(squares);
+                    this.mailbox[square] = piece;
+                    this.middlegameScore += PieceSquareTables.middlegameScore(piece, square);
+                    this.endgameScore += PieceSquareTables.endgameScore(piece, square);
+                    this.gamePhase += PieceSquareTables.phaseWeight(piece);
+                    if(pieceType == PieceType.PAWN){
+                        this.pawnHash ^= Zobrist.pieceKey(piece, square);
+                    }
+                }
+            }
+        }
+        final Color boardSideToMove = board.currentPlayer().getColor();
+        this.sideToMove = sideToMove.ordinal();
+        this.castlingRights = board.getCastlingRights();
+        this.halfmoveClock = board.getHalfmoveClock();
+        this.ply = 0;
+        if(sideToMove == boardSideToMove){
+            this.enPassantSquare = board.getEnPassantSquare();
+            this.zobristHash = board.getZobristHash();
+        } else{
+            this.enPassantSquare = NO_SQUARE;
+            this.zobristHash = board.getZobristHash() ^ Zobrist.sideToMoveKey(Color.BLACK) ^
+                    Zobrist.enPassantKey(board.getEnPassantSquare(), boardSideToMove,
+                                         board.getPieceBitboard(boardSideToMove, PieceType.PAWN));
+        }
+    }
+
+    // Replace the position with pieces[i] on squares[i] for the first count pieces, without castling rights or an
+    // en passant square, and empty the undo stack. Pieces are BitBoardUtils.pieceIndex values and must not share squares.
+    // Tablebase generation sets up millions of positions this way on one board, without building a Board for each.
+    public void setPosition(final int[] pieces, final int[] squares, final int count, final Color sideToMove){
+        Arrays.fill(this.pieceBitboards, 0L);
+        Arrays.fill(this.occupancy, 0L);
+        Arrays.fill(this.mailbox, NO_PIECE);
+        this.zobristHash = Zobrist.sideToMoveKey(sideToMove);
+        this.pawnHash = 0L;
+        this.middlegameScore = 0;
+        this.endgameScore = 0;
+        this.gamePhase = 0;
+        for(int i = 0; i < count; i++){
+            addPiece(pieces[i], squares[i]);
+        }
+        this.sideToMove = sideToMove.ordinal();
+        this.castlingRights = 0;
+        this.enPassantSquare = NO_SQUARE;
+        this.halfmoveClock = 0;
+        this.ply = 0;
+    }
+
+    // Make the move of the Move object passed in, which must belong to the position this board is in.
+    public void makeMove(final Move move){
+        makeMove(createMove(move.getCurrentCoordinate(), move.getDestinationCoordinate(),
+                 move instanceof Move.PawnPromotion ? ((Move.PawnPromotion) move).getPromotionType() : null));
+    }
+
+    public void makeMove(final int from, final int to){
+        makeMove(createMove(from, to, null));
+    }
+
+    public void makeMove(final int from, final int to, final PieceType promotionType){
+        makeMove(createMove(from, to, promotionType));
+    }
+
+    // Pack the move from one square to another in the current position. Castling, en passant and pawn jumps are
+    // recognised from the piece moved and the distance travelled, so callers only need the two squares,
+    // plus the piece type a pawn promotes to when it reaches the last rank (null otherwise).
+    public int createMove(final int from, final int to, final PieceType promotionType){
+        final int piece = this.mailbox[from];
+        final int pieceType = piece % BitBoardUtils.NUM_PIECE_TYPES;
+        if(promotionType != null){
+            return PackedMove.createPromotion(from, to, piece, this.mailbox[to], promotionType);
+        }
+        if(pieceType == PAWN && to == this.enPassantSquare){
+            return PackedMove.create(from, to, piece, BitBoardUtils.pieceIndex(COLORS[this.sideToMove ^ 1], PieceType.PAWN),
+                                     PackedMove.EN_PASSANT_FLAG);
+        }
+        final int flags = pieceType == KING && Math.abs(to - from) == 2 ? PackedMove.CASTLE_FLAG :
+                          pieceType == PAWN && Math.abs(to - from) == 2 * BoardUtils.NUM_SQUARES_PER_ROW ?
+                          PackedMove.DOUBLE_PUSH_FLAG : 0;
+        return PackedMove.create(from, to, piece, this.mailbox[to], flags);
+    }
+
+    // Make a packed move, as generated by generateLegalMoves for the current position.
+    public void makeMove(final int move){
+        if(this.ply == this.undoRecords.length){
+            growUndoStack();
+        }
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final int piece = PackedMove.getMovedPiece(move);
+        final int captured = PackedMove.getCapturedPiece(move);
+        int record = from | (to << 6) | ((captured + 1) << 12) | (this.castlingRights << 16) | ((this.enPassantSquare + 1) << 20);
+        this.undoHashes[this.ply] = this.zobristHash;
+        // The piece keys are kept up to date by addPiece/removePiece/movePiece, the rest of the state is swapped below.
+        this.zobristHash ^= Zobrist.castlingKey(this.castlingRights) ^ enPassantKey();
+
+        if(PackedMove.isEnPassant(move)){
+            // The captured pawn sits behind the destination, not on it.
+            removePiece(captured, to - (COLORS[this.sideToMove].getDirection() * BoardUtils.NUM_SQUARES_PER_ROW));
+            record |= EN_PASSANT_FLAG;
+        } else if(captured != NO_PIECE){
+            removePiece(captured, to);
+        }
+        movePiece(piece, from, to);
+
+        if(PackedMove.isPromotion(move)){
+            removePiece(piece, to);
+            addPiece(BitBoardUtils.pieceIndex(COLORS[this.sideToMove], PackedMove.getPromotionType(move)), to);
+            record |= PROMOTION_FLAG;
+        }
+        if(PackedMove.isCastle(move)){
+            // Castling also moves the Rook next to the King, on the side the King went.
+            final int rookFrom = to > from ? from + 3 : from - 4;
+            movePiece(this.mailbox[rookFrom], rookFrom, to > from ? from + 1 : from - 1);
+            record |= CASTLE_FLAG;
+        }
+
+        this.undoRecords[this.ply] = record;
+        this.undoHalfmoveClocks[this.ply] = this.halfmoveClock;
+        this.ply++;
+
+        this.castlingRights = BoardUtils.updateCastlingRights(this.castlingRights, from, to);
+        this.enPassantSquare = PackedMove.isDoublePush(move) ? (from + to) / 2 : NO_SQUARE;
+        this.halfmoveClock = (piece % BitBoardUtils.NUM_PIECE_TYPES == PAWN || captured != NO_PIECE) ? 0 : this.halfmoveClock + 1;
+        this.sideToMove ^= 1;
+        this.zobristHash ^= Zobrist.castlingKey(this.castlingRights) ^ enPassantKey() ^ Zobrist.sideToMoveKey(Color.BLACK);
+    }
+
+    // Take back the last move made, restoring the exact previous state from the undo stack.
+    public void unmakeMove(){
+        if(this.ply == 0){
+            throw new IllegalStateException("No move to unmake");
+        }
+        this.ply--;
+        final int record = this.undoRecords[this.ply];
+        final int from = record & 0x3F;
+        final int to = (record >>> 6) & 0x3F;
+        final int captured = ((record >>> 12) & 0xF) - 1;
+
+        this.sideToMove ^= 1;
+        this.castlingRights = (record >>> 16) & 0xF;
+        this.enPassantSquare = ((record >>> 20) & 0x7F) - 1;
+        this.halfmoveClock = this.undoHalfmoveClocks[this.ply];
+
+        if((record & CASTLE_FLAG) != 0){
+            final int rookFrom = to > from ? from + 3 : from - 4;
+            final int rookTo = to > from ? from + 1 : from - 1;
+            movePiece(this.mailbox[rookTo], rookTo, rookFrom);
+        }
+        if((record & PROMOTION_FLAG) != 0){
+            // Swap the promoted piece back for the pawn that made the move.
+            removePiece(this.mailbox[to], to);
+            addPiece(BitBoardUtils.pieceIndex(COLORS[this.sideToMove], PieceType.PAWN), to);
+        }
+        movePiece(this.mailbox[to], to, from);
+
+        if((record & EN_PASSANT_FLAG) != 0){
+            addPiece(captured, to - (COLORS[this.sideToMove].getDirection() * BoardUtils.NUM_SQUARES_PER_ROW));
+        } else if(captured != NO_PIECE){
+            addPiece(captured, to);
+        }
+        this.zobristHash = this.undoHashes[this.ply];
+    }
+
+    // Fill the moves array from index 0 with the legal moves of the side to move and return how many there are.
+    // The array should be MAX_MOVES long. Searches keep one per ply and reuse them, so generation never allocates.
+    // Checking pieces and pinned pieces are worked out first, so only strictly legal moves are generated
+    // and no move ever has to be made to find out whether it leaves the King in check.
+    // No legal moves at all means checkmate when isInCheck(), stalemate otherwise.
+    public int generateLegalMoves(final int[] moves){
+        return generateLegalMoves(moves, false);
+    }
+
+    // Only the legal captures, en passant captures and promotions, the moves a quiescence search looks at.
+    // In check all legal moves are returned instead, since every way out of the check has to be looked at.
+    public int generateLegalCaptures(final int[] moves){
+        return generateLegalMoves(moves, true);
+    }
+
+    private int generateLegalMoves(final int[] moves, final boolean capturesOnly){
+        final int us = this.sideToMove;
+        final int them = us ^ 1;
+        final int base = us * BitBoardUtils.NUM_PIECE_TYPES;
+        final long own = this.occupancy[us];
+        final long all = own | this.occupancy[them];
+        final int kingSquare = BitBoardUtils.firstSquare(this.pieceBitboards[base + KING]);
+        final long checkers = attackersOf(kingSquare, them, all);
+        final boolean tacticalOnly = capturesOnly && checkers == 0;
+        final long destinations = tacticalOnly ? this.occupancy[them] : ~own;
+
+        // The King may go anywhere that is not attacked once it has left its square. Taking it off the occupancy
+        // keeps a slider that checks along a line covering the square behind the King as well.
+        int count = 0;
+        final long occupancyWithoutKing = all ^ BitBoardUtils.squareMask(kingSquare);
+        for(long squares = LeaperAttacks.kingAttacks(kingSquare) & destinations; squares != 0; squares &= squares - 1){
+            final int to = BitBoardUtils.firstSquare(squares);
+            if(!isSquareAttacked(to, them, occupancyWithoutKing)){
+                moves[count++] = PackedMove.create(kingSquare, to, base + KING, this.mailbox[to], 0);
+            }
+        }
+        // Against a double check only a King move helps.
+        if(BitBoardUtils.bitCount(checkers) > 1){
+            return count;
+        }
+        // Against a single check the other pieces have to capture the checking piece or step in between.
+        final long targets = checkers == 0 ? destinations :
+                checkers | RayTables.between(kingSquare, BitBoardUtils.firstSquare(checkers));
+        final long pinned = calculatePinnedPieces(kingSquare, all);
+
+        // Pawns promote by pushing onto empty squares, so they get every square and sort out the pushes themselves.
+        count = generatePawnMoves(moves, count, kingSquare, tacticalOnly ? ~own : targets, pinned, all, tacticalOnly);
+        count = generatePieceMoves(moves, count, base + KNIGHT, kingSquare, targets, pinned, all);
+        count = generatePieceMoves(moves, count, base + BISHOP, kingSquare, targets, pinned, all);
+        count = generatePieceMoves(moves, count, base + ROOK, kingSquare, targets, pinned, all);
+        count = generatePieceMoves(moves, count, base + QUEEN, kingSquare, targets, pinned, all);
+        return checkers == 0 && !tacticalOnly ? generateCastles(moves, count, kingSquare, all) : count;
+    }
+
+    // Whether any piece of the given color attacks the square, worked out backwards from the square.
+    public boolean isSquareAttacked(final int squareCoordinate, final Color attackerColor){
+        return isSquareAttacked(squareCoordinate, attackerColor.ordinal());
+    }
+
+    // The attackers of both colors if only the given squares were occupied, as in Board.attackersOf.
+    // Taking pieces off the occupancy one by one plays out an exchange on the square, x-rays included.
+    public long attackersOf(final int squareCoordinate, final long occupancy){
+        return (attackersOf(squareCoordinate, 0, occupancy) | attackersOf(squareCoordinate, 1, occupancy)) & occupancy;
+    }
+
+    public boolean isInCheck(){
+        return isKingAttacked(this.sideToMove);
+    }
+
+    // Whether the current position already occurred among the positions this board went through, looking back
+    // no further than the last capture or pawn move, since no position before those can come back.
+    // Positions from before the board was created are not known.
+    public boolean isRepetition(){
+        for(int i = this.ply - 2; i >= 0 && i >= this.ply - this.halfmoveClock; i -= 2){
+            if(this.undoHashes[i] == this.zobristHash){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Materialise an immutable snapshot of the current position, e.g. to hand back to the GUI.
+    public Board toBoard(){
+        final Board.Builder builder = new Board.Builder();
+        // The pawn that can be taken en passant stands one row past the en passant square, seen from the side to move.
+        final int enPassantPawnSquare = this.enPassantSquare == NO_SQUARE ? NO_SQUARE :
+                this.enPassantSquare - (COLORS[this.sideToMove].getDirection() * BoardUtils.NUM_SQUARES_PER_ROW);
+        for(int square = 0; square < BoardUtils.NUM_SQUARES; square++){
+            final int piece = this.mailbox[square];
+            if(piece != NO_PIECE){
+                final Piece boardPiece = createPiece(PIECE_TYPES[piece % BitBoardUtils.NUM_PIECE_TYPES],
+                                                     COLORS[piece / BitBoardUtils.NUM_PIECE_TYPES], square,
+                                                     isUnmovedCastlingPiece(square));
+                builder.setPiece(boardPiece);
+                if(square == enPassantPawnSquare){
+                    builder.setEnPassantPawn((Pawn) boardPiece);
+                }
+            }
+        }
+        builder.setMoveMaker(COLORS[this.sideToMove]);
+        return builder.build();
+    }
+
+    // Getters
+    public int getPiece(final int squareCoordinate){
+        return this.mailbox[squareCoordinate];
+    }
+    public long getPieceBitboard(final Color color, final PieceType pieceType){
+        return this.pieceBitboards[BitBoardUtils.pieceIndex(color, pieceType)];
+    }
+    public long getPieceBitboard(final int piece){
+        return this.pieceBitboards[piece];
+    }
+    public long getOccupancy(final Color color){
+        return this.occupancy[color.ordinal()];
+    }
+    public long getOccupancy(){
+        return this.occupancy[0] | this.occupancy[1];
+    }
+    public Color getSideToMove(){
+        return COLORS[this.sideToMove];
+    }
+    public int getCastlingRights(){
+        return this.castlingRights;
+    }
+    public int getEnPassantSquare(){
+        return this.enPassantSquare;
+    }
+    public int getHalfmoveClock(){
+        return this.halfmoveClock;
+    }
+    public int getPly(){
+        return this.ply;
+    }
+    public long getZobristHash(){
+        return this.zobristHash;
+    }
+    public long getPawnHash(){
+        return this.pawnHash;
+    }
+    // Material plus piece-square values from White's side, see PieceSquareTables.
+    public int getMiddlegameScore(){
+        return this.middlegameScore;
+    }
+    public int getEndgameScore(){
+        return this.endgameScore;
+    }
+    public int getGamePhase(){
+        return this.gamePhase;
+    }
+
+    private long enPassantKey(){
+        return Zobrist.enPassantKey(this.enPassantSquare, COLORS[this.sideToMove],
+                                    this.pieceBitboards[this.sideToMove * BitBoardUtils.NUM_PIECE_TYPES + PAWN]);
+    }
+
+    // With promotionsOnly, pushes are only generated onto the last rank.
+    private int generatePawnMoves(final int[] moves, int count, final int kingSquare,
+                                  final long targets, final long pinned, final long all, final boolean promotionsOnly){
+        final int us = this.sideToMove;
+        final int pawn = us * BitBoardUtils.NUM_PIECE_TYPES + PAWN;
+        final int forward = COLORS[us].getDirection() * BoardUtils.NUM_SQUARES_PER_ROW;
+        final long enemies = this.occupancy[us ^ 1];
+        for(long pawns = this.pieceBitboards[pawn]; pawns != 0; pawns &= pawns - 1){
+            final int from = BitBoardUtils.firstSquare(pawns);
+            final long allowed = BitBoardUtils.isSet(pinned, from) ? targets & RayTables.line(kingSquare, from) : targets;
+            final int push = from + forward;
+            if(!BitBoardUtils.isSet(all, push) && (!promotionsOnly || BitBoardUtils.isSet(PROMOTION_RANKS[us], push))){
+                if(BitBoardUtils.isSet(allowed, push)){
+                    count = addPawnMoves(moves, count, from, push, pawn, NO_PIECE);
+                }
+                final int jump = push + forward;
+                if(BitBoardUtils.isSet(PAWN_START_RANKS[us], from) && !BitBoardUtils.isSet(all, jump) &&
+                   BitBoardUtils.isSet(allowed, jump)){
+                    moves[count++] = PackedMove.create(from, jump, pawn, NO_PIECE, PackedMove.DOUBLE_PUSH_FLAG);
+                }
+            }
+            final long attacks = LeaperAttacks.pawnAttacks(COLORS[us], from);
+            for(long captures = attacks & enemies & allowed; captures != 0; captures &= captures - 1){
+                final int to = BitBoardUtils.firstSquare(captures);
+                count = addPawnMoves(moves, count, from, to, pawn, this.mailbox[to]);
+            }
+            if(this.enPassantSquare != NO_SQUARE && BitBoardUtils.isSet(attacks, this.enPassantSquare) &&
+               isLegalEnPassant(from, kingSquare, all)){
+                final int capturedPawn = (us ^ 1) * BitBoardUtils.NUM_PIECE_TYPES + PAWN;
+                moves[count++] = PackedMove.create(from, this.enPassantSquare, pawn, capturedPawn, PackedMove.EN_PASSANT_FLAG);
+            }
+        }
+        return count;
+    }
+
+    // En passant takes two pawns off the board at once, which the pin test cannot see: with both pawns standing
+    // between the King and an enemy Rook on the same rank, neither is pinned, yet the capture exposes the King.
+    // So the capture is played out on the occupancy and the King's square tested directly.
+    private boolean isLegalEnPassant(final int from, final int kingSquare, final long all){
+        final int us = this.sideToMove;
+        final int themBase = (us ^ 1) * BitBoardUtils.NUM_PIECE_TYPES;
+        final long capturedBit = BitBoardUtils.squareMask(this.enPassantSquare - COLORS[us].getDirection() * BoardUtils.NUM_SQUARES_PER_ROW);
+        final long occupancy = (all ^ BitBoardUtils.squareMask(from) ^ capturedBit) | BitBoardUtils.squareMask(this.enPassantSquare);
+        final long queens = this.pieceBitboards[themBase + QUEEN];
+        return (MagicBitBoards.rookAttacks(kingSquare, occupancy) & (this.pieceBitboards[themBase + ROOK] | queens)) == 0 &&
+               (MagicBitBoards.bishopAttacks(kingSquare, occupancy) & (this.pieceBitboards[themBase + BISHOP] | queens)) == 0 &&
+               (LeaperAttacks.knightAttacks(kingSquare) & this.pieceBitboards[themBase + KNIGHT]) == 0 &&
+               (LeaperAttacks.pawnAttacks(COLORS[us], kingSquare) & this.pieceBitboards[themBase + PAWN] & ~capturedBit) == 0;
+    }
+
+    // Own pieces that are the only piece between the King and an enemy slider on the same line.
+    // Candidate pinners are found by looking out from the King through the own pieces.
+    private long calculatePinnedPieces(final int kingSquare, final long all){
+        final int us = this.sideToMove;
+        final int themBase = (us ^ 1) * BitBoardUtils.NUM_PIECE_TYPES;
+        final long enemies = this.occupancy[us ^ 1];
+        final long queens = this.pieceBitboards[themBase + QUEEN];
+        final long pinners = (MagicBitBoards.rookAttacks(kingSquare, enemies) & (this.pieceBitboards[themBase + ROOK] | queens)) |
+                             (MagicBitBoards.bishopAttacks(kingSquare, enemies) & (this.pieceBitboards[themBase + BISHOP] | queens));
+        long pinned = BitBoardUtils.EMPTY;
+        for(long squares = pinners; squares != 0; squares &= squares - 1){
+            final long blockers = RayTables.between(kingSquare, BitBoardUtils.firstSquare(squares)) & all;
+            if(BitBoardUtils.bitCount(blockers) == 1){
+                pinned |= blockers & this.occupancy[us];
+            }
+        }
+        return pinned;
+    }
+
+    // Knight, Bishop, Rook and Queen moves onto the target squares. A pinned piece may only move along its pin.
+    private int generatePieceMoves(final int[] moves, int count, final int piece, final int kingSquare,
+                                   final long targets, final long pinned, final long all){
+        final int pieceType = piece % BitBoardUtils.NUM_PIECE_TYPES;
+        for(long pieces = this.pieceBitboards[piece]; pieces != 0; pieces &= pieces - 1){
+            final int from = BitBoardUtils.firstSquare(pieces);
+            long destinations = attacks(pieceType, from, all) & targets;
+            if(BitBoardUtils.isSet(pinned, from)){
+                destinations &= RayTables.line(kingSquare, from);
+            }
+            count = addMoves(moves, count, from, piece, destinations);
+        }
+        return count;
+    }
+
+    private static long attacks(final int pieceType, final int from, final long all){
+        if(pieceType == KNIGHT){
+            return LeaperAttacks.knightAttacks(from);
+        } else if(pieceType == BISHOP){
+            return MagicBitBoards.bishopAttacks(from, all);
+        } else if(pieceType == ROOK){
+            return MagicBitBoards.rookAttacks(from, all);
+        }
+        return MagicBitBoards.queenAttacks(from, all);
+    }
+
+    // A pawn move onto the last rank is added once for every piece it can promote to.
+    private int addPawnMoves(final int[] moves, int count, final int from, final int to, final int pawn, final int captured){
+        if(BitBoardUtils.isSet(PROMOTION_RANKS[this.sideToMove], to)){
+            for(final PieceType promotionType: PROMOTION_TYPES){
+                moves[count++] = PackedMove.createPromotion(from, to, pawn, captured, promotionType);
+            }
+        } else{
+            moves[count++] = PackedMove.create(from, to, pawn, captured, 0);
+        }
+        return count;
+    }
+
+    private int addMoves(final int[] moves, int count, final int from, final int piece, final long destinations){
+        for(long squares = destinations; squares != 0; squares &= squares - 1){
+            final int to = BitBoardUtils.firstSquare(squares);
+            moves[count++] = PackedMove.create(from, to, piece, this.mailbox[to], 0);
+        }
+        return count;
+    }
+
+    // The castling rights guarantee the King and Rook are still on their home squares.
+    // Only called when not in check. The squares between King and Rook must be empty,
+    // and the King may not pass through or land on an attacked square.
+    private int generateCastles(final int[] moves, int count, final int kingSquare, final long all){
+        final int us = this.sideToMove;
+        final int kingSide = us == 0 ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+        final int queenSide = us == 0 ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+        if((this.castlingRights & (kingSide | queenSide)) == 0){
+            return count;
+        }
+        final int king = us * BitBoardUtils.NUM_PIECE_TYPES + KING;
+        if((this.castlingRights & kingSide) != 0 &&
+           !BitBoardUtils.isSet(all, kingSquare + 1) && !BitBoardUtils.isSet(all, kingSquare + 2) &&
+           !isSquareAttacked(kingSquare + 1, us ^ 1) && !isSquareAttacked(kingSquare + 2, us ^ 1)){
+            moves[count++] = PackedMove.create(kingSquare, kingSquare + 2, king, NO_PIECE, PackedMove.CASTLE_FLAG);
+        }
+        if((this.castlingRights & queenSide) != 0 && !BitBoardUtils.isSet(all, kingSquare - 1) &&
+           !BitBoardUtils.isSet(all, kingSquare - 2) && !BitBoardUtils.isSet(all, kingSquare - 3) &&
+           !isSquareAttacked(kingSquare - 1, us ^ 1) && !isSquareAttacked(kingSquare - 2, us ^ 1)){
+            moves[count++] = PackedMove.create(kingSquare, kingSquare - 2, king, NO_PIECE, PackedMove.CASTLE_FLAG);
+        }
+        return count;
+    }
+
+    private boolean isKingAttacked(final int color){
+        return isSquareAttacked(BitBoardUtils.firstSquare(this.pieceBitboards[color * BitBoardUtils.NUM_PIECE_TYPES + KING]), color ^ 1);
+    }
+
+    private boolean isSquareAttacked(final int square, final int attacker){
+        return isSquareAttacked(square, attacker, this.occupancy[0] | this.occupancy[1]);
+    }
+
+    private boolean isSquareAttacked(final int square, final int attacker, final long all){
+        final int base = attacker * BitBoardUtils.NUM_PIECE_TYPES;
+        final long queens = this.pieceBitboards[base + QUEEN];
+        return (LeaperAttacks.pawnAttacks(COLORS[attacker ^ 1], square) & this.pieceBitboards[base + PAWN]) != 0 ||
+               (LeaperAttacks.knightAttacks(square) & this.pieceBitboards[base + KNIGHT]) != 0 ||
+               (LeaperAttacks.kingAttacks(square) & this.pieceBitboards[base + KING]) != 0 ||
+               (MagicBitBoards.bishopAttacks(square, all) & (this.pieceBitboards[base + BISHOP] | queens)) != 0 ||
+               (MagicBitBoards.rookAttacks(square, all) & (this.pieceBitboards[base + ROOK] | queens)) != 0;
+    }
+
+    // The pieces of the attacking color that attack the square, given the occupancy.
+    private long attackersOf(final int square, final int attacker, final long all){
+        final int base = attacker * BitBoardUtils.NUM_PIECE_TYPES;
+        final long queens = this.pieceBitboards[base + QUEEN];
+        return (LeaperAttacks.pawnAttacks(COLORS[attacker ^ 1], square) & this.pieceBitboards[base + PAWN]) |
+               (LeaperAttacks.knightAttacks(square) & this.pieceBitboards[base + KNIGHT]) |
+               (LeaperAttacks.kingAttacks(square) & this.pieceBitboards[base + KING]) |
+               (MagicBitBoards.bishopAttacks(square, all) & (this.pieceBitboards[base + BISHOP] | queens)) |
+               (MagicBitBoards.rookAttacks(square, all) & (this.pieceBitboards[base + ROOK] | queens));
+    }
+
+    private void growUndoStack(){
+        if(this.ply == MAX_GAME_PLY){
+            throw new IllegalStateException("Undo stack is full");
+        }
+        final int capacity = Math.min(2 * this.undoRecords.length, MAX_GAME_PLY);
+        this.undoRecords = Arrays.copyOf(this.undoRecords, capacity);
+        this.undoHalfmoveClocks = Arrays.copyOf(this.undoHalfmoveClocks, capacity);
+        this.undoHashes = Arrays.copyOf(this.undoHashes, capacity);
+    }
+
+    private void addPiece(final int piece, final int square){
+        final long squareBit = BitBoardUtils.squareMask(square);
+        this.pieceBitboards[piece] |= squareBit;
+        this.occupancy[piece / BitBoardUtils.NUM_PIECE_TYPES] |= squareBit;
+        this.mailbox[square] = piece;
+        this.zobristHash ^= Zobrist.pieceKey(piece, square);
+        this.middlegameScore += PieceSquareTables.middlegameScore(piece, square);
+        this.endgameScore += PieceSquareTables.endgameScore(piece, square);
+        this.gamePhase += PieceSquareTables.phaseWeight(piece);
+        if(piece % BitBoardUtils.NUM_PIECE_TYPES == PAWN){
+            this.pawnHash ^= Zobrist.pieceKey(piece, square);
+        }
+    }
+
+    private void removePiece(final int piece, final int square){
+        final long squareBit = BitBoardUtils.squareMask(square);
+        this.pieceBitboards[piece] &= ~squareBit;
+        this.occupancy[piece / BitBoardUtils.NUM_PIECE_TYPES] &= ~squareBit;
+        this.mailbox[square] = NO_PIECE;
+        this.zobristHash ^= Zobrist.pieceKey(piece, square);
+        this.middlegameScore -= PieceSquareTables.middlegameScore(piece, square);
+        this.endgameScore -= PieceSquareTables.endgameScore(piece, square);
+        this.gamePhase -= PieceSquareTables.phaseWeight(piece);
+        if(piece % BitBoardUtils.NUM_PIECE_TYPES == PAWN){
+            this.pawnHash ^= Zobrist.pieceKey(piece, square);
+        }
+    }
+
+    private void movePiece(final int piece, final int from, final int to){
+        final long fromTo = BitBoardUtils.squareMask(from) | BitBoardUtils.squareMask(to);
+        this.pieceBitboards[piece] ^= fromTo;
+        this.occupancy[piece / BitBoardUtils.NUM_PIECE_TYPES] ^= fromTo;
+        this.mailbox[from] = NO_PIECE;
+        this.mailbox[to] = piece;
+        this.zobristHash ^= Zobrist.pieceKey(piece, from) ^ Zobrist.pieceKey(piece, to);
+        this.middlegameScore += PieceSquareTables.middlegameScore(piece, to) - PieceSquareTables.middlegameScore(piece, from);
+        this.endgameScore += PieceSquareTables.endgameScore(piece, to) - PieceSquareTables.endgameScore(piece, from);
+        if(piece % BitBoardUtils.NUM_PIECE_TYPES == PAWN){
+            this.pawnHash ^= Zobrist.pieceKey(piece, from) ^ Zobrist.pieceKey(piece, to);
+        }
+    }
+
+    // Kings and Rooks on their home squares count as unmoved while the castling rights they take part in remain.
+    private boolean isUnmovedCastlingPiece(final int square){
+        switch(square){
+            case WHITE_KING_SQUARE: return (this.castlingRights & (WHITE_KING_SIDE | WHITE_QUEEN_SIDE)) != 0;
+            case WHITE_KING_ROOK_SQUARE: return (this.castlingRights & WHITE_KING_SIDE) != 0;
+            case WHITE_QUEEN_ROOK_SQUARE: return (this.castlingRights & WHITE_QUEEN_SIDE) != 0;
+            case BLACK_KING_SQUARE: return (this.castlingRights & (BLACK_KING_SIDE | BLACK_QUEEN_SIDE)) != 0;
+            case BLACK_KING_ROOK_SQUARE: return (this.castlingRights & BLACK_KING_SIDE) != 0;
+            case BLACK_QUEEN_ROOK_SQUARE: return (this.castlingRights & BLACK_QUEEN_SIDE) != 0;
+            default: return false;
+        }
+    }
+
+    private static Piece createPiece(final PieceType pieceType, final Color color, final int square, final boolean isFirstMove){
+        switch(pieceType){
+            case ROOK: return new Rook(color, square, isFirstMove);
+            case KNIGHT: return new Knight(color, square, isFirstMove);
+            case BISHOP: return new Bishop(color, square, isFirstMove);
+            case QUEEN: return new Queen(color, square, isFirstMove);
+            case KING: return new King(color, square, isFirstMove);
+            default: return new Pawn(color, square, isFirstMove);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Color;
+import com.chess.engine.pieces.Piece.PieceType;
+
+// Zobrist hashing: every (piece, square) pair, the side to move, each set of castling rights and each en passant file
+// gets a random 64-bit key. A position's hash is the XOR of the keys of everything true in it.
+// Because XOR is its own inverse, a move updates the hash by XORing out what it removed and XORing in what it added,
+// so boards never need to rehash all their pieces after a move.
+public class Zobrist {
+
+    // Fixed seed, so hashes are stable between runs and can be stored (opening books, position indexes).
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private static final long[][] PIECE_SQUARE_KEYS = new long[BitBoardUtils.NUM_PIECE_BITBOARDS][BoardUtils.NUM_SQUARES];
+    private static final long[] CASTLING_KEYS = new long[BoardUtils.ALL_CASTLING_RIGHTS + 1];
+    private static final long[] EN_PASSANT_FILE_KEYS = new long[BoardUtils.NUM_SQUARES_PER_ROW];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        final long[] state = {SEED};
+        for(final long[] squareKeys: PIECE_SQUARE_KEYS){
+            for(int square = 0; square < BoardUtils.NUM_SQUARES; square++){
+                squareKeys[square] = nextKey(state);
+            }
+        }
+        // No castling rights at all hashes to zero, every other combination is the XOR of its single rights.
+        final long[] singleRightKeys = {nextKey(state), nextKey(state), nextKey(state), nextKey(state)};
+        for(int rights = 0; rights < CASTLING_KEYS.length; rights++){
+            for(int bit = 0; bit < singleRightKeys.length; bit++){
+                if((rights & (1 << bit)) != 0){
+                    CASTLING_KEYS[rights] ^= singleRightKeys[bit];
+                }
+            }
+        }
+        for(int file = 0; file < EN_PASSANT_FILE_KEYS.length; file++){
+            EN_PASSANT_FILE_KEYS[file] = nextKey(state);
+        }
+        BLACK_TO_MOVE_KEY = nextKey(state);
+    }
+
+    private Zobrist(){
+        throw new RuntimeException("You cannot instantiate this class");
+    }
+
+    // The key of a piece, given as its BitBoardUtils.pieceIndex slot, on a square.
+    public static long pieceKey(final int piece, final int squareCoordinate){
+        return PIECE_SQUARE_KEYS[piece][squareCoordinate];
+    }
+
+    public static long pieceKey(final Color color, final PieceType pieceType, final int squareCoordinate){
+        return PIECE_SQUARE_KEYS[BitBoardUtils.pieceIndex(color, pieceType)][squareCoordinate];
+    }
+
+    public static long castlingKey(final int castlingRights){
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    public static long sideToMoveKey(final Color sideToMove){
+        return sideToMove.isBlack() ? BLACK_TO_MOVE_KEY : 0L;
+    }
+
+    // The en passant file only counts when a pawn of the side to move can actually capture there.
+    // Otherwise the position is the same as one without the jump, and must hash the same for repetitions to be found.
+    public static long enPassantKey(final int enPassantSquare, final Color sideToMove, final long sideToMovePawns){
+        if(enPassantSquare < 0){
+            return 0L;
+        }
+        final Color jumpedColor = sideToMove.isWhite() ? Color.BLACK : Color.WHITE;
+        if((LeaperAttacks.pawnAttacks(jumpedColor, enPassantSquare) & sideToMovePawns) == 0){
+            return 0L;
+        }
+        return EN_PASSANT_FILE_KEYS[enPassantSquare % BoardUtils.NUM_SQUARES_PER_ROW];
+    }
+
+    // Hash a board from scratch, walking only its occupied squares. Used when a Board is built
+    // without a hash carried over from the previous position, e.g. the start position or a FEN.
+    public static long calculateHash(final Board board){
+        long hash = 0L;
+        for(final Color color: Color.values()){
+            for(final PieceType pieceType: PieceType.values()){
+                for(long squares = board.getPieceBitboard(color, pieceType); squares != 0; squares &= squares - 1){
+                    hash ^= pieceKey(color, pieceType, BitBoardUtils.firstSquare(squares));
+                }
+            }
+        }
+        final Color sideToMove = board.currentPlayer().getColor();
+        return hash ^ castlingKey(board.getCastlingRights()) ^ sideToMoveKey(sideToMove) ^
+               enPassantKey(board.getEnPassantSquare(), sideToMove, board.getPieceBitboard(sideToMove, PieceType.PAWN));
+    }
+
+    // SplitMix64, small and with good enough distribution for hash keys.
+    private static long nextKey(final long[] state){
+        long z = (state[0] += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,173 @@
+package com.chess.engine.book;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.MoveFactory;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+// A binary opening book, memory-mapped read only. The file is an array of 16-byte big-endian entries sorted by key,
+// in the Polyglot layout: key (8 bytes), move (2), weight (2), learn (4). A position's moves are the run of entries
+// with its key, and a probe finds the run with a binary search over the mapping: a handful of page reads and no
+// parsing or allocation. The pages live in the operating system's page cache, so every process that opens the same
+// book shares one copy.
+// Keys are our own Zobrist hashes, Board.getZobristHash(), not Polyglot's Random64 keys, so the layout is the same
+// but books from other programs will find nothing here and ours nothing there.
+// Moves are encoded as in Polyglot: bits 0-2 destination file, 3-5 destination rank, 6-8 origin file, 9-11 origin
+// rank, with rank 0 being the first rank, and 12-14 the promotion piece, 1 to 4 for Knight, Bishop, Rook and Queen.
+// Castling is written as the King taking its own Rook, e.g. e1h1.
+public final class OpeningBook {
+
+    public static final int ENTRY_BYTES = 16;
+
+    private static final int MOVE_OFFSET = 8;
+    private static final int WEIGHT_OFFSET = 10;
+    private static final int NOT_FOUND = -1;
+    // By Polyglot promotion code, 0 being no promotion.
+    private static final PieceType[] PROMOTION_TYPES = {null, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    private final MappedByteBuffer entries;
+    private final int entryCount;
+
+    private OpeningBook(final MappedByteBuffer entries){
+        this.entries = entries;
+        this.entryCount = entries.capacity() / ENTRY_BYTES;
+    }
+
+    public static OpeningBook open(final Path file) throws IOException{
+        try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            final long size = channel.size();
+            if(size % ENTRY_BYTES != 0 || size > Integer.MAX_VALUE){
+                throw new IOException(file + " is not an opening book of " + ENTRY_BYTES + "-byte entries under 2 GB");
+            }
+            // The mapping stays valid after the channel is closed.
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public int getEntryCount(){
+        return this.entryCount;
+    }
+
+    // The index of the first entry with the key, or -1 when the book does not have the position.
+    public int findFirst(final long key){
+        int low = 0;
+        int high = this.entryCount - 1;
+        int found = NOT_FOUND;
+        while(low <= high){
+            final int middle = (low + high) >>> 1;
+            final int comparison = Long.compareUnsigned(getKey(middle), key);
+            if(comparison < 0){
+                low = middle + 1;
+            } else{
+                if(comparison == 0){
+                    found = middle;
+                }
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    // Getters for an entry by index.
+    public long getKey(final int index){
+        return this.entries.getLong(index * ENTRY_BYTES);
+    }
+    public int getMove(final int index){
+        return Short.toUnsignedInt(this.entries.getShort(index * ENTRY_BYTES + MOVE_OFFSET));
+    }
+    public int getWeight(final int index){
+        return Short.toUnsignedInt(this.entries.getShort(index * ENTRY_BYTES + WEIGHT_OFFSET));
+    }
+
+    // A book move for the board picked at random in proportion to the weights, or Move.NULL_MOVE if there is none.
+    public Move selectMove(final Board board, final Random random){
+        final long key = board.getZobristHash();
+        final int first = findFirst(key);
+        if(first == NOT_FOUND){
+            return Move.NULL_MOVE;
+        }
+        long totalWeight = 0;
+        for(int index = first; index < this.entryCount && getKey(index) == key; index++){
+            totalWeight += getWeight(index);
+        }
+        if(totalWeight == 0){
+            return Move.NULL_MOVE;
+        }
+        long pick = (long) (random.nextDouble() * totalWeight);
+        for(int index = first; index < this.entryCount && getKey(index) == key; index++){
+            pick -= getWeight(index);
+            if(pick < 0){
+                return decodeMove(board, getMove(index));
+            }
+        }
+        return Move.NULL_MOVE;
+    }
+
+    // The book move with the highest weight, or Move.NULL_MOVE if there is none.
+    public Move getBestMove(final Board board){
+        final long key = board.getZobristHash();
+        final int first = findFirst(key);
+        int best = NOT_FOUND;
+        for(int index = first; first != NOT_FOUND && index < this.entryCount && getKey(index) == key; index++){
+            if(best == NOT_FOUND || getWeight(index) > getWeight(best)){
+                best = index;
+            }
+        }
+        return best == NOT_FOUND ? Move.NULL_MOVE : decodeMove(board, getMove(best));
+    }
+
+    // The legal move a book move stands for on the board, or Move.NULL_MOVE if it is not one.
+    public static Move decodeMove(final Board board, final int bookMove){
+        final int from = coordinate((bookMove >>> 6) & 7, (bookMove >>> 9) & 7);
+        int to = coordinate(bookMove & 7, (bookMove >>> 3) & 7);
+        final int promotionCode = (bookMove >>> 12) & 7;
+        final Piece movedPiece = board.getSquare(from).getPiece();
+        final Piece target = board.getSquare(to).getPiece();
+        if(movedPiece != null && movedPiece.getPieceType().isKing() && target != null &&
+           target.getPieceType().isRook() && target.getPieceColor() == movedPiece.getPieceColor()){
+            // The King takes its own Rook: a castle, which our moves write as the King's two-square step.
+            to = to > from ? from + 2 : from - 2;
+        }
+        return MoveFactory.createMove(board, from, to, promotionCode < PROMOTION_TYPES.length ? PROMOTION_TYPES[promotionCode] : null);
+    }
+
+    public static int encodeMove(final Move move){
+        final int from = move.getCurrentCoordinate();
+        int to = move.getDestinationCoordinate();
+        if(move.isCastlingMove()){
+            to = to > from ? from + 3 : from - 4;
+        }
+        int promotionCode = 0;
+        if(move instanceof Move.PawnPromotion){
+            final PieceType promotionType = ((Move.PawnPromotion) move).getPromotionType();
+            for(int code = 1; code < PROMOTION_TYPES.length; code++){
+                if(PROMOTION_TYPES[code] == promotionType){
+                    promotionCode = code;
+                }
+            }
+        }
+        return file(to) | rank(to) << 3 | file(from) << 6 | rank(from) << 9 | promotionCode << 12;
+    }
+
+    // Square 0 is a8, while Polyglot counts ranks up from the first.
+    private static int coordinate(final int file, final int rank){
+        return (BoardUtils.NUM_SQUARES_PER_ROW - 1 - rank) * BoardUtils.NUM_SQUARES_PER_ROW + file;
+    }
+
+    private static int file(final int coordinate){
+        return coordinate % BoardUtils.NUM_SQUARES_PER_ROW;
+    }
+
+    private static int rank(final int coordinate){
+        return BoardUtils.NUM_SQUARES_PER_ROW - 1 - coordinate / BoardUtils.NUM_SQUARES_PER_ROW;
+    }
+}
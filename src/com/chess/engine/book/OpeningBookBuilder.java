@@ -0,0 +1,170 @@
+package com.chess.engine.book;
+
+import com.chess.engine.board.Move;
+import com.chess.pgn.PgnGame;
+import com.chess.pgn.PgnPipeline;
+import com.chess.pgn.PgnReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Builds an OpeningBook out of games. Every move of the first plies of a game scores for the side that played it,
+// the way Polyglot counts: 2 for a win, 1 for a draw, 0 for a loss, and games without a result do not count.
+// Moves that scored nothing, or were played in fewer than the minimum number of games, are left out,
+// and the scores of a position are scaled down together when the largest would not fit the 16-bit weight.
+// Positions are kept in memory until the book is written, so the book's size, not the number of games, is the limit.
+public final class OpeningBookBuilder {
+
+    private static final int MAX_WEIGHT = 0xFFFF;
+    private static final int WRITE_BUFFER_ENTRIES = 4096;
+
+    // The moves seen in one position, with their scores and how many games played them.
+    private static final class PositionMoves {
+
+        private int[] moves = new int[2];
+        private long[] scores = new long[2];
+        private int[] games = new int[2];
+        private int count;
+
+        void add(final int move, final int score){
+            for(int i = 0; i < this.count; i++){
+                if(this.moves[i] == move){
+                    this.scores[i] += score;
+                    this.games[i]++;
+                    return;
+                }
+            }
+            if(this.count == this.moves.length){
+                this.moves = Arrays.copyOf(this.moves, this.count * 2);
+                this.scores = Arrays.copyOf(this.scores, this.count * 2);
+                this.games = Arrays.copyOf(this.games, this.count * 2);
+            }
+            this.moves[this.count] = move;
+            this.scores[this.count] = score;
+            this.games[this.count] = 1;
+            this.count++;
+        }
+    }
+
+    private final int maxPly;
+    private final int minGames;
+    private final Map<Long, PositionMoves> positions = new HashMap<>();
+    private long games;
+
+    // Take the first maxPly moves of every game, and keep moves played in at least minGames of them.
+    public OpeningBookBuilder(final int maxPly, final int minGames){
+        if(maxPly < 1 || minGames < 1){
+            throw new IllegalArgumentException("A book needs at least one ply and one game per move, got " +
+                                               maxPly + " and " + minGames);
+        }
+        this.maxPly = maxPly;
+        this.minGames = minGames;
+    }
+
+    public void addGame(final PgnGame game){
+        final String result = game.getResult();
+        final boolean whiteWon = PgnReader.WHITE_WINS.equals(result);
+        final boolean blackWon = PgnReader.BLACK_WINS.equals(result);
+        if(!whiteWon && !blackWon && !PgnReader.DRAW.equals(result)){
+            return;
+        }
+        final List<Move> moves = game.getMoves();
+        for(int ply = 0; ply < moves.size() && ply < this.maxPly; ply++){
+            final Move move = moves.get(ply);
+            final boolean whiteMoved = move.getMovedPiece().getPieceColor().isWhite();
+            final int score = (whiteMoved ? whiteWon : blackWon) ? 2 : (whiteWon || blackWon) ? 0 : 1;
+            this.positions.computeIfAbsent(move.getBoard().getZobristHash(), key -> new PositionMoves())
+                          .add(OpeningBook.encodeMove(move), score);
+        }
+        this.games++;
+    }
+
+    public long getGames(){
+        return this.games;
+    }
+
+    // Write the book, sorted by key and within a position by weight, and return how many entries it has.
+    public long write(final Path file) throws IOException{
+        final long[] keys = new long[this.positions.size()];
+        int keyCount = 0;
+        for(final Long key: this.positions.keySet()){
+            keys[keyCount++] = key;
+        }
+        // Sorted as unsigned numbers, the order OpeningBook.findFirst searches in.
+        for(int i = 0; i < keyCount; i++){
+            keys[i] ^= Long.MIN_VALUE;
+        }
+        Arrays.sort(keys);
+
+        long entries = 0;
+        try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                          StandardOpenOption.TRUNCATE_EXISTING)){
+            final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_ENTRIES * OpeningBook.ENTRY_BYTES);
+            for(int i = 0; i < keyCount; i++){
+                final long key = keys[i] ^ Long.MIN_VALUE;
+                final PositionMoves positionMoves = this.positions.get(key);
+                final Integer[] order = new Integer[positionMoves.count];
+                long maxScore = 0;
+                for(int move = 0; move < positionMoves.count; move++){
+                    order[move] = move;
+                    maxScore = Math.max(maxScore, positionMoves.scores[move]);
+                }
+                Arrays.sort(order, (first, second) -> Long.compare(positionMoves.scores[second], positionMoves.scores[first]));
+                for(final int move: order){
+                    final long score = positionMoves.scores[move];
+                    if(score == 0 || positionMoves.games[move] < this.minGames){
+                        continue;
+                    }
+                    final long weight = maxScore > MAX_WEIGHT ? Math.max(1, score * MAX_WEIGHT / maxScore) : score;
+                    if(buffer.remaining() < OpeningBook.ENTRY_BYTES){
+                        writeFully(channel, buffer);
+                    }
+                    buffer.putLong(key).putShort((short) positionMoves.moves[move]).putShort((short) weight).putInt(0);
+                    entries++;
+                }
+            }
+            writeFully(channel, buffer);
+        }
+        return entries;
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException{
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Usage: OpeningBookBuilder <book> <maxPly> <minGames> <pgn>...
+    // Reads the PGN files on all cores and writes the book.
+    public static void main(final String[] args) throws IOException, InterruptedException{
+        if(args.length < 4){
+            System.out.println("Usage: OpeningBookBuilder <book> <maxPly> <minGames> <pgn>...");
+            return;
+        }
+        final OpeningBookBuilder builder = new OpeningBookBuilder(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        final List<Path> files = new ArrayList<>();
+        for(int i = 3; i < args.length; i++){
+            files.add(Paths.get(args[i]));
+        }
+        final PgnPipeline pipeline = new PgnPipeline.Builder().addSink(games -> {
+            for(final PgnGame game: games){
+                builder.addGame(game);
+            }
+        }).build();
+        System.out.println(pipeline.ingest(files));
+        final long entries = builder.write(Paths.get(args[0]));
+        System.out.println("Wrote " + entries + " entries for " + builder.positions.size() + " positions from " +
+                           builder.getGames() + " games to " + args[0]);
+    }
+}
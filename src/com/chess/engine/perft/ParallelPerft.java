@@ -0,0 +1,248 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.player.MoveTransition;
+import com.chess.pgn.FenUtilities;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Perft and leaf enumeration on a ForkJoinPool.
+// The first splitDepth plies are expanded on immutable Boards, each move becoming its own task, so idle threads
+// steal whole subtrees from busy ones. Below that every task copies its Board into a SearchBoard of its own and
+// walks the rest of its subtree sequentially, the same way Perft.perft(SearchBoard, int) does.
+// With a PerftCache, subtree counts are shared between threads, so a position reached again by another
+// move order, by any thread, is only counted once.
+public final class ParallelPerft {
+
+    // Enumerating visits every leaf, so there is no bulk counting and no cache; the visitor is called from all
+    // threads at once and has to be thread safe.
+    public interface LeafVisitor {
+        void visit(SearchBoard leaf);
+    }
+
+    // Subtrees this shallow are cheaper to count than to look up.
+    private static final int MIN_CACHED_DEPTH = 2;
+    // Or to hand to another thread.
+    private static final int MIN_SPLIT_DEPTH = 3;
+
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private final PerftCache cache;
+
+    private ParallelPerft(final Builder builder){
+        this.pool = new ForkJoinPool(builder.threads);
+        this.splitDepth = builder.splitDepth;
+        this.cache = builder.cacheMegabytes > 0 ? new PerftCache(builder.cacheMegabytes) : null;
+    }
+
+    public long perft(final Board board, final int depth){
+        return this.pool.invoke(new PerftTask(board, depth, 0, null));
+    }
+
+    // Split the count by root move, like Perft.divide, with every root move searched in parallel.
+    public Map<String, Long> divide(final Board board, final int depth){
+        final List<Move> moves = new ArrayList<>();
+        final List<PerftTask> tasks = new ArrayList<>();
+        for(final Move move: board.currentPlayer().getLegalMoves()){
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(transition.getMoveStatus().isDone()){
+                moves.add(move);
+                tasks.add(new PerftTask(transition.getTransitionBoard(), depth - 1, 1, null));
+            }
+        }
+        this.pool.invoke(new RecursiveTask<Void>(){
+            @Override
+            protected Void compute(){
+                invokeAll(tasks);
+                return null;
+            }
+        });
+        final Map<String, Long> divide = new LinkedHashMap<>();
+        for(int i = 0; i < moves.size(); i++){
+            divide.put(Perft.toNotation(moves.get(i)), tasks.get(i).join());
+        }
+        return divide;
+    }
+
+    // Call the visitor on every position depth plies below the board and return how many there were.
+    public long enumerate(final Board board, final int depth, final LeafVisitor visitor){
+        return this.pool.invoke(new PerftTask(board, depth, 0, visitor));
+    }
+
+    public void clearCache(){
+        if(this.cache != null){
+            this.cache.clear();
+        }
+    }
+
+    public int getThreads(){
+        return this.pool.getParallelism();
+    }
+
+    public void shutdown(){
+        this.pool.shutdown();
+    }
+
+    private final class PerftTask extends RecursiveTask<Long> {
+
+        // ForkJoinTask is Serializable, though tasks are never serialized.
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int depth;
+        private final int ply;
+        private final LeafVisitor visitor;
+
+        PerftTask(final Board board, final int depth, final int ply, final LeafVisitor visitor){
+            this.board = board;
+            this.depth = depth;
+            this.ply = ply;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected Long compute(){
+            if(this.ply >= ParallelPerft.this.splitDepth || this.depth < MIN_SPLIT_DEPTH){
+                final SearchBoard searchBoard = new SearchBoard(this.board);
+                final int[][] moveLists = new int[this.depth + 1][SearchBoard.MAX_MOVES];
+                return this.visitor != null ? enumerate(searchBoard, this.depth, moveLists, this.visitor) :
+                                              count(searchBoard, this.depth, moveLists);
+            }
+            final List<PerftTask> subtasks = new ArrayList<>();
+            for(final Move move: this.board.currentPlayer().getLegalMoves()){
+                final MoveTransition transition = this.board.currentPlayer().makeMove(move);
+                if(transition.getMoveStatus().isDone()){
+                    subtasks.add(new PerftTask(transition.getTransitionBoard(), this.depth - 1, this.ply + 1, this.visitor));
+                }
+            }
+            long nodes = 0;
+            for(final PerftTask subtask: invokeAll(subtasks)){
+                nodes += subtask.join();
+            }
+            return nodes;
+        }
+    }
+
+    private long count(final SearchBoard board, final int depth, final int[][] moveLists){
+        if(depth == 0){
+            return 1;
+        }
+        final boolean cached = this.cache != null && depth >= MIN_CACHED_DEPTH;
+        final long key = board.getZobristHash();
+        if(cached){
+            final long nodes = this.cache.probe(key, depth);
+            if(nodes != PerftCache.MISS){
+                return nodes;
+            }
+        }
+        final int[] moves = moveLists[depth];
+        final int moveCount = board.generateLegalMoves(moves);
+        if(depth == 1){
+            return moveCount;
+        }
+        long nodes = 0;
+        for(int i = 0; i < moveCount; i++){
+            board.makeMove(moves[i]);
+            nodes += count(board, depth - 1, moveLists);
+            board.unmakeMove();
+        }
+        if(cached){
+            this.cache.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    private static long enumerate(final SearchBoard board, final int depth, final int[][] moveLists, final LeafVisitor visitor){
+        if(depth == 0){
+            visitor.visit(board);
+            return 1;
+        }
+        final int[] moves = moveLists[depth];
+        final int moveCount = board.generateLegalMoves(moves);
+        long nodes = 0;
+        for(int i = 0; i < moveCount; i++){
+            board.makeMove(moves[i]);
+            nodes += enumerate(board, depth - 1, moveLists, visitor);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // Usage: ParallelPerft <depth> [threads] [cacheMegabytes] [fen]
+    // Prints the divide like Perft, then enumerates the same tree again and counts the leaves that are in check.
+    public static void main(final String[] args){
+        final int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final int cacheMegabytes = args.length > 2 ? Integer.parseInt(args[2]) : Builder.DEFAULT_CACHE_MEGABYTES;
+        final Board board = args.length > 3 ? FenUtilities.createGameFromFEN(args[3]) : Board.createStandardBoard();
+        final ParallelPerft perft = new Builder().setThreads(threads).setCacheMegabytes(cacheMegabytes).build();
+
+        final long startTime = System.nanoTime();
+        final Map<String, Long> divide = perft.divide(board, depth);
+        final long elapsedNanos = System.nanoTime() - startTime;
+
+        long nodes = 0;
+        for(final Map.Entry<String, Long> entry: divide.entrySet()){
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            nodes += entry.getValue();
+        }
+        System.out.println();
+        System.out.println("Moves: " + divide.size());
+        System.out.println("Nodes: " + nodes);
+        System.out.printf("Time: %d ms, %.0f nodes/s with %d thread(s)%n", elapsedNanos / 1_000_000, nodes * 1e9 / elapsedNanos, threads);
+
+        final AtomicLong checks = new AtomicLong();
+        final long enumerated = perft.enumerate(board, depth, leaf -> {
+            if(leaf.isInCheck()){
+                checks.incrementAndGet();
+            }
+        });
+        System.out.println("Enumerated: " + enumerated + " leaves, " + checks.get() + " in check");
+        perft.shutdown();
+    }
+
+    // Builder for the pool and cache settings. The cache is off by default.
+    public static class Builder{
+
+        static final int DEFAULT_CACHE_MEGABYTES = 64;
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        int splitDepth = 2;
+        int cacheMegabytes;
+
+        public Builder(){
+        }
+
+        public Builder setThreads(final int threads){
+            if(threads < 1){
+                throw new IllegalArgumentException("At least one perft thread is needed, got " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        // How many plies are split into separate tasks. Deeper splits balance better but cost more Board moves.
+        public Builder setSplitDepth(final int splitDepth){
+            this.splitDepth = splitDepth;
+            return this;
+        }
+
+        // 0 turns the cache off.
+        public Builder setCacheMegabytes(final int cacheMegabytes){
+            this.cacheMegabytes = cacheMegabytes;
+            return this;
+        }
+
+        public ParallelPerft build(){
+            return new ParallelPerft(this);
+        }
+    }
+}
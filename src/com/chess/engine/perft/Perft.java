@@ -0,0 +1,113 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.player.MoveTransition;
+import com.chess.pgn.FenUtilities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Perft counts the leaf nodes of the legal move tree below a position to a fixed depth.
+// The totals are compared with published reference counts to check move generation and Player.makeMove,
+// and the time taken gives us a nodes/second figure for the generator.
+public final class Perft {
+
+    private Perft(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    // Count the leaf nodes depth plies below the board.
+    public static long perft(final Board board, final int depth){
+        if(depth == 0){
+            return 1;
+        }
+        // Bulk counting: every legal move at the last ply is a leaf, so we count them instead of recursing.
+        if(depth == 1){
+            return countLegalMoves(board);
+        }
+        long nodes = 0;
+        for(final Move move: board.currentPlayer().getLegalMoves()){
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(transition.getMoveStatus().isDone()){
+                nodes += perft(transition.getTransitionBoard(), depth - 1);
+            }
+        }
+        return nodes;
+    }
+
+    // The same count on a SearchBoard with packed moves, making and unmaking moves in place.
+    // Each ply fills its own preallocated move list, so the whole run allocates nothing past this point.
+    public static long perft(final SearchBoard board, final int depth){
+        return perft(board, depth, new int[depth + 1][SearchBoard.MAX_MOVES]);
+    }
+
+    private static long perft(final SearchBoard board, final int depth, final int[][] moveLists){
+        if(depth == 0){
+            return 1;
+        }
+        final int[] moves = moveLists[depth];
+        final int moveCount = board.generateLegalMoves(moves);
+        if(depth == 1){
+            return moveCount;
+        }
+        long nodes = 0;
+        for(int i = 0; i < moveCount; i++){
+            board.makeMove(moves[i]);
+            nodes += perft(board, depth - 1, moveLists);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // Split the count by root move, the standard way of narrowing a wrong total down to a single move.
+    public static Map<String, Long> divide(final Board board, final int depth){
+        final Map<String, Long> divide = new LinkedHashMap<>();
+        for(final Move move: board.currentPlayer().getLegalMoves()){
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(transition.getMoveStatus().isDone()){
+                divide.put(toNotation(move), perft(transition.getTransitionBoard(), depth - 1));
+            }
+        }
+        return divide;
+    }
+
+    // Coordinate notation for a move, e.g. "e2e4" or "e7e8q", as used by other engines' divide output.
+    static String toNotation(final Move move){
+        final StringBuilder notation = new StringBuilder()
+                .append(BoardUtils.getPositionAtCoordinate(move.getCurrentCoordinate()))
+                .append(BoardUtils.getPositionAtCoordinate(move.getDestinationCoordinate()));
+        if(move instanceof Move.PawnPromotion){
+            notation.append(((Move.PawnPromotion) move).getPromotionType().toString().toLowerCase());
+        }
+        return notation.toString();
+    }
+
+    // The legal move list only holds moves that can be made, so its size is the count.
+    private static long countLegalMoves(final Board board){
+        return board.currentPlayer().getLegalMoves().size();
+    }
+
+    // Usage: Perft <depth> [fen]
+    // Prints the divide for the standard start position, or the given FEN, with the total and nodes/second.
+    public static void main(final String[] args){
+        final int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final Board board = args.length > 1 ? FenUtilities.createGameFromFEN(args[1]) : Board.createStandardBoard();
+
+        final long startTime = System.nanoTime();
+        final Map<String, Long> divide = divide(board, depth);
+        final long elapsedNanos = System.nanoTime() - startTime;
+
+        long nodes = 0;
+        for(final Map.Entry<String, Long> entry: divide.entrySet()){
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            nodes += entry.getValue();
+        }
+        System.out.println();
+        System.out.println("Moves: " + divide.size());
+        System.out.println("Nodes: " + nodes);
+        System.out.printf("Time: %d ms, %.0f nodes/s%n", elapsedNanos / 1_000_000, nodes * 1e9 / elapsedNanos);
+    }
+}
@@ -0,0 +1,66 @@
+package com.chess.engine.perft;
+
+import java.util.Arrays;
+
+// A fixed size, lock-free cache of subtree counts keyed by (Zobrist hash, depth), shared by all perft threads.
+// The same position is often reached by several move orders, and its count below a given depth never changes,
+// so a hit saves the whole subtree.
+// Each slot is laid out like a TranspositionTable entry: key ^ data, then the data, which packs the depth in
+// bits 0-7 and the count above it. A slot another thread is halfway through writing no longer verifies against
+// its key, so a torn write reads as a miss.
+// Slots are always replaced: there is no depth preference, the table is only a cache.
+public final class PerftCache {
+
+    private static final int BYTES_PER_SLOT = 16;
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+    // Counts get the 56 bits above the depth, more than any perft that finishes will need.
+    private static final long MAX_COUNT = -1L >>> DEPTH_BITS;
+
+    // Returned by probe when the count is not in the cache.
+    public static final long MISS = -1;
+
+    private final long[] table;
+    private final int slotMask;
+
+    public PerftCache(final int sizeInMegabytes){
+        if(sizeInMegabytes < 1){
+            throw new IllegalArgumentException("A perft cache needs at least 1 MB, not " + sizeInMegabytes);
+        }
+        // Round down to a power of two number of slots, so the slot index is a mask of the key.
+        final long slots = Long.highestOneBit(sizeInMegabytes * (1L << 20) / BYTES_PER_SLOT);
+        final int slotCount = (int) Math.min(slots, 1 << 29);
+        this.table = new long[2 * slotCount];
+        this.slotMask = slotCount - 1;
+    }
+
+    // The leaf count depth plies below the position with this key, or MISS.
+    public long probe(final long key, final int depth){
+        final int index = index(key);
+        final long data = this.table[index + 1];
+        if((this.table[index] ^ data) != key || (data & DEPTH_MASK) != depth){
+            return MISS;
+        }
+        return data >>> DEPTH_BITS;
+    }
+
+    public void store(final long key, final int depth, final long count){
+        if(count > MAX_COUNT || depth > DEPTH_MASK){
+            return;
+        }
+        final int index = index(key);
+        final long data = (count << DEPTH_BITS) | depth;
+        this.table[index] = key ^ data;
+        this.table[index + 1] = data;
+    }
+
+    // Forget every count, so the next perft computes its own instead of reading an earlier run's.
+    public void clear(){
+        Arrays.fill(this.table, 0L);
+    }
+
+    private int index(final long key){
+        // The low bits of the key pick the slot; each slot is two longs.
+        return ((int) key & this.slotMask) << 1;
+    }
+}
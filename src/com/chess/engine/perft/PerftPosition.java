@@ -0,0 +1,33 @@
+package com.chess.engine.perft;
+
+// A reference position for the perft suite with its published leaf counts, index 0 being depth 1.
+public final class PerftPosition {
+
+    private final String name;
+    private final String fen;
+    private final long[] expectedNodes;
+
+    public PerftPosition(final String name,
+                         final String fen,
+                         final long... expectedNodes){
+        this.name = name;
+        this.fen = fen;
+        this.expectedNodes = expectedNodes;
+    }
+
+    public String getName(){
+        return this.name;
+    }
+
+    public String getFen(){
+        return this.fen;
+    }
+
+    public int getMaxDepth(){
+        return this.expectedNodes.length;
+    }
+
+    public long getExpectedNodes(final int depth){
+        return this.expectedNodes[depth - 1];
+    }
+}
@@ -0,0 +1,124 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.SearchBoard;
+import com.chess.pgn.FenUtilities;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Runs perft over the standard reference positions and checks every count against the published numbers.
+// Together they cover castling through and out of check, en passant (including the discovered check case),
+// promotions and underpromotions, and pins. Before that, the FEN reader has to refuse INVALID_FENS.
+public final class PerftSuite {
+
+    public static final List<PerftPosition> REFERENCE_POSITIONS = Collections.unmodifiableList(Arrays.asList(
+            new PerftPosition("Start position",
+                    "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    20, 400, 8902, 197281, 4865609),
+            new PerftPosition("Kiwipete",
+                    "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2039, 97862, 4085603),
+            new PerftPosition("Position 3",
+                    "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2812, 43238, 674624),
+            new PerftPosition("Position 4",
+                    "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9467, 422333),
+            new PerftPosition("Position 4 mirrored",
+                    "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+                    6, 264, 9467, 422333),
+            new PerftPosition("Position 5",
+                    "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1486, 62379, 2103487),
+            new PerftPosition("Position 6",
+                    "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890, 3894594)
+    ));
+
+    // Positions the FEN reader must refuse, since the move generators cannot handle them.
+    public static final List<String> INVALID_FENS = Collections.unmodifiableList(Arrays.asList(
+            "P3k3/8/8/8/8/8/8/4K3 w - - 0 1",
+            "4k3/8/8/8/8/8/8/p3K3 b - - 0 1",
+            "8/8/8/8/8/8/8/8 w - - 0 1"
+    ));
+
+    private static final String[] MODES = {"Board", "SearchBoard", "Parallel"};
+    private static final int BOARD = 0;
+    private static final int SEARCH_BOARD = 1;
+    private static final int PARALLEL = 2;
+    private static final int PARALLEL_CACHE_MEGABYTES = 64;
+
+    private PerftSuite(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    // Usage: PerftSuite [maxDepth]
+    // Each position is searched to the smaller of maxDepth and its deepest reference count.
+    // Exits with status 1 if any count is wrong, so it can gate a release.
+    public static void main(final String[] args){
+        final int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        // Per mode, so each mode's throughput stands on its own.
+        final long[] totalNodes = new long[MODES.length];
+        final long[] totalNanos = new long[MODES.length];
+        int failures = 0;
+
+        for(final String fen: INVALID_FENS){
+            boolean rejected = false;
+            try{
+                FenUtilities.createGameFromFEN(fen);
+            } catch(final IllegalArgumentException e){
+                rejected = true;
+            }
+            if(!rejected){
+                failures++;
+            }
+            System.out.printf("%-52s %s%n", fen, rejected ? "rejected OK" : "accepted FAIL");
+        }
+
+        final ParallelPerft parallelPerft = new ParallelPerft.Builder().setCacheMegabytes(PARALLEL_CACHE_MEGABYTES).build();
+        for(final PerftPosition position: REFERENCE_POSITIONS){
+            final Board board = FenUtilities.createGameFromFEN(position.getFen());
+            final SearchBoard searchBoard = new SearchBoard(board);
+            for(int depth = 1; depth <= Math.min(maxDepth, position.getMaxDepth()); depth++){
+                // Check both generators, the Board/Move API and the packed moves of SearchBoard, and the parallel
+                // perft with its shared cache on top of them. The cache starts empty for every position and depth,
+                // or the parallel run would mostly read back the counts of the one before it.
+                for(int mode = 0; mode < MODES.length; mode++){
+                    if(mode == PARALLEL){
+                        parallelPerft.clearCache();
+                    }
+                    final long startTime = System.nanoTime();
+                    final long nodes = mode == BOARD ? Perft.perft(board, depth) :
+                                       mode == SEARCH_BOARD ? Perft.perft(searchBoard, depth) :
+                                       parallelPerft.perft(board, depth);
+                    final long elapsedNanos = System.nanoTime() - startTime;
+                    final long expectedNodes = position.getExpectedNodes(depth);
+                    final boolean passed = nodes == expectedNodes;
+
+                    totalNodes[mode] += nodes;
+                    totalNanos[mode] += elapsedNanos;
+                    if(!passed){
+                        failures++;
+                    }
+                    System.out.printf("%-20s %-11s depth %d: %,12d nodes (expected %,12d) %s %8d ms %,12.0f nodes/s%n",
+                            position.getName(), MODES[mode], depth, nodes, expectedNodes,
+                            passed ? "OK  " : "FAIL", elapsedNanos / 1_000_000, nodes * 1e9 / Math.max(elapsedNanos, 1));
+                }
+            }
+        }
+        parallelPerft.shutdown();
+        System.out.println();
+        for(int mode = 0; mode < MODES.length; mode++){
+            System.out.printf("%-11s %,14d nodes in %8d ms, %,14.0f nodes/s%n", MODES[mode], totalNodes[mode],
+                    totalNanos[mode] / 1_000_000, totalNodes[mode] * 1e9 / Math.max(totalNanos[mode], 1));
+        }
+        System.out.printf("Parallel speedup over SearchBoard with %d thread(s): %.2fx%n", parallelPerft.getThreads(),
+                (double) totalNanos[SEARCH_BOARD] / Math.max(totalNanos[PARALLEL], 1));
+        System.out.printf("%d failure(s)%n", failures);
+        if(failures > 0){
+            System.exit(1);
+        }
+    }
+}
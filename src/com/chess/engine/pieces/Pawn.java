@@ -1,10 +1,16 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Color;
+import com.chess.engine.board.BitBoardUtils;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.LeaperAttacks;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Move.NormalMove;
+import com.chess.engine.board.Move.PawnAttackMove;
+import com.chess.engine.board.Move.PawnEnPassantAttackMove;
+import com.chess.engine.board.Move.PawnJump;
+import com.chess.engine.board.Move.PawnMove;
+import com.chess.engine.board.Move.PawnPromotion;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -13,12 +19,15 @@ import java.util.List;
 
 public class Pawn extends Piece{
 
-    // Fixed set of destination coordinates for our Pawn. A Pawn is not a sliding piece,
-    // so these coordinates offsets can always be applied with no further iterations to check paths.
-    private final static int[] POTENTIAL_MOVE_COORDINATES = {8, 16, 7, 9};
+    // The pieces a Pawn reaching the last rank can become, most useful first.
+    private final static PieceType[] PROMOTION_TYPES = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
 
-    public Pawn(final Color pieceColor, final int piecePosition) {
-        super(PieceType.PAWN, piecePosition, pieceColor);
+    public Pawn(final Color pieceColor, final int piecePosition){
+        this(pieceColor, piecePosition, true);
+    }
+
+    public Pawn(final Color pieceColor, final int piecePosition, final boolean isFirstMove){
+        super(PieceType.PAWN, piecePosition, pieceColor, isFirstMove);
     }
 
     @Override
@@ -26,50 +35,34 @@ public class Pawn extends Piece{
 
         final List<Move> legalMoves = new ArrayList<>();
 
-        // Like always, loop through our potential coords and add it to our current position.
         // The difference for a Pawn is the directionality for a particular color.
-        // If White, check positive coords.
-        // If Black, check the negative coords
-        for(final int currentCoordinateOffset: POTENTIAL_MOVE_COORDINATES){
-            final int potentialDestinationCoordinate = this.piecePosition + (this.getPieceColor().getDirection()*currentCoordinateOffset);
-
-            // Check the range
-            if(!BoardUtils.isValidSquareCoordinate(potentialDestinationCoordinate)){
-                continue;
+        // White moves towards the lower coordinates, Black towards the higher ones.
+        final int forwardCoordinate = this.piecePosition + (this.pieceColor.getDirection() * BoardUtils.NUM_SQUARES_PER_ROW);
+
+        // A Pawn can only push forward onto an empty square, and jump two squares from its starting rank
+        // if both squares in front of it are empty.
+        if(BoardUtils.isValidSquareCoordinate(forwardCoordinate) && !board.isSquareOccupied(forwardCoordinate)){
+            addMove(legalMoves, new PawnMove(board, this, forwardCoordinate));
+            final int jumpCoordinate = forwardCoordinate + (this.pieceColor.getDirection() * BoardUtils.NUM_SQUARES_PER_ROW);
+            if(isOnStartingRank() && !board.isSquareOccupied(jumpCoordinate)){
+                legalMoves.add(new PawnJump(board, this, jumpCoordinate));
             }
+        }
+
+        // The diagonal captures come from the precomputed pawn attack table, so the edge columns need no special cases.
+        final Color opponentColor = this.pieceColor.isWhite() ? Color.BLACK : Color.WHITE;
+        for(long captures = LeaperAttacks.pawnAttacks(this.pieceColor, this.piecePosition) & board.getOccupancy(opponentColor);
+            captures != 0; captures &= captures - 1){
+            final int destinationCoordinate = BitBoardUtils.firstSquare(captures);
+            addMove(legalMoves, new PawnAttackMove(board, this, destinationCoordinate, board.getSquare(destinationCoordinate).getPiece()));
+        }
 
-            // Here we have a different exclusion design pattern. We should change this later to reflect the other pieces.
-            if(potentialDestinationCoordinate == 8 && !board.getSquare(potentialDestinationCoordinate).isSquareOccupied()){
-                //TODO: more work to do here
-                legalMoves.add(new NormalMove(board, this, potentialDestinationCoordinate));
-            } else if(currentCoordinateOffset == 16 && this.isFirstMove()
-                                                    && (BoardUtils.SEVENTH_RANK[this.piecePosition] && this.getPieceColor().isBlack())
-                                                    || (BoardUtils.SECOND_RANK[this.piecePosition] && this.getPieceColor().isWhite())){
-                final int behindPotentialDestinationCoordinate = this.piecePosition + (this.getPieceColor().getDirection()*8);
-                if(board.getSquare(behindPotentialDestinationCoordinate) != null &&
-                   !board.getSquare(potentialDestinationCoordinate).isSquareOccupied()){
-                    legalMoves.add(new NormalMove(board, this, potentialDestinationCoordinate));
-                }
-            } else if(currentCoordinateOffset == 7 &&
-                    !((BoardUtils.EIGHTH_COLUMN[this.piecePosition] && this.pieceColor.isWhite() ||
-                      (BoardUtils.FIRST_COLUMN[this.piecePosition] && this.pieceColor.isBlack())))){
-                if(board.getSquare(potentialDestinationCoordinate) != null){
-                    final Piece pieceAtDestination = board.getSquare(potentialDestinationCoordinate).getPiece();
-                    if(this.pieceColor != pieceAtDestination.getPieceColor()){
-                        //TODO more work here!
-                        legalMoves.add(new Move.AttackingMove(board, this, potentialDestinationCoordinate, pieceAtDestination));
-                    }
-                }
-            } else if(currentCoordinateOffset == 9 &&
-                    !((BoardUtils.FIRST_COLUMN[this.piecePosition] && this.pieceColor.isWhite()) ||
-                      (BoardUtils.EIGHTH_COLUMN[this.piecePosition] && this.pieceColor.isBlack()))){
-                if(board.getSquare(potentialDestinationCoordinate) != null){
-                    final Piece pieceAtDestination = board.getSquare(potentialDestinationCoordinate).getPiece();
-                    if(this.pieceColor != pieceAtDestination.getPieceColor()){
-                        //TODO more work here!
-                        legalMoves.add(new Move.AttackingMove(board, this, potentialDestinationCoordinate, pieceAtDestination));
-                    }
-                }
+        // If the opponent's last move was a pawn jump, the square it skipped can be captured on as well.
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if(enPassantPawn != null && enPassantPawn.getPieceColor() != this.pieceColor){
+            final int enPassantCoordinate = enPassantPawn.getPiecePosition() + (this.pieceColor.getDirection() * BoardUtils.NUM_SQUARES_PER_ROW);
+            if(BitBoardUtils.isSet(LeaperAttacks.pawnAttacks(this.pieceColor, this.piecePosition), enPassantCoordinate)){
+                legalMoves.add(new PawnEnPassantAttackMove(board, this, enPassantCoordinate, enPassantPawn));
             }
         }
         return Collections.unmodifiableList(legalMoves);
@@ -77,24 +70,32 @@ public class Pawn extends Piece{
 
     @Override
     public Pawn movePiece(final Move move) {
-        return new Pawn(move.getMovedPiece().getPieceColor(), move.getDestinationCoordinate());
+        return new Pawn(move.getMovedPiece().getPieceColor(), move.getDestinationCoordinate(), false);
     }
 
-
     @Override
     public String toString(){
         return PieceType.PAWN.toString();
     }
 
-    /* TODO We could also use the below design strategy that follows the rules for our other piece exclusions.
-    private static boolean isFirstColumnWithExclusions(final int currentPosition, final int coordinateOffset, final Color color){
-        return(BoardUtils.FIRST_COLUMN[currentPosition] && coordinateOffset == 7 && color.isBlack() ||
-               BoardUtils.FIRST_COLUMN[currentPosition] && coordinateOffset == 9 && color.isWhite());
+    // A move onto the last rank is expanded into one promotion for each piece the Pawn can become.
+    private void addMove(final List<Move> legalMoves, final Move move){
+        if(isPromotionSquare(move.getDestinationCoordinate())){
+            for(final PieceType promotionType: PROMOTION_TYPES){
+                legalMoves.add(new PawnPromotion(move, promotionType));
+            }
+        } else{
+            legalMoves.add(move);
+        }
+    }
+
+    private boolean isPromotionSquare(final int coordinate){
+        return (this.pieceColor.isWhite() && BoardUtils.EIGHTH_RANK[coordinate]) ||
+               (this.pieceColor.isBlack() && BoardUtils.FIRST_RANK[coordinate]);
     }
 
-    private static boolean isEighthColumnWithExclusions(final int currentPosition, final int coordinateOffset, final Color color){
-        return(BoardUtils.EIGHTH_COLUMN[currentPosition] && coordinateOffset == 7 && color.isWhite() ||
-               BoardUtils.EIGHTH_COLUMN[currentPosition] && coordinateOffset == 9 && color.isBlack());
+    private boolean isOnStartingRank(){
+        return (this.pieceColor.isWhite() && BoardUtils.SECOND_RANK[this.piecePosition]) ||
+               (this.pieceColor.isBlack() && BoardUtils.SEVENTH_RANK[this.piecePosition]);
     }
-    */
 }
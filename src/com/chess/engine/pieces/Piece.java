@@ -1,10 +1,14 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Color;
+import com.chess.engine.board.BitBoardUtils;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public abstract class Piece {
 
@@ -17,11 +21,12 @@ public abstract class Piece {
 
     Piece(final PieceType pieceType,
           final int piecePosition,
-          final Color pieceColor){
+          final Color pieceColor,
+          final boolean isFirstMove){
         this.pieceType = pieceType;
         this.piecePosition = piecePosition;
         this.pieceColor = pieceColor;
-        this.isFirstMove = false;
+        this.isFirstMove = isFirstMove;
         this.cachedHashCode = computeHashCode();
     }
 
@@ -68,6 +73,22 @@ public abstract class Piece {
     // Our Piece is immutable, so we have to return a new version of it to place on the new board.
     public abstract Piece movePiece(Move move);
 
+    // Turn a bitboard of destination squares (own pieces already removed) into Move objects.
+    // A destination holding an enemy piece becomes an AttackingMove, an empty one becomes a NormalMove.
+    protected Collection<Move> createMoves(final Board board, final long destinations){
+        final List<Move> legalMoves = new ArrayList<>(BitBoardUtils.bitCount(destinations));
+        for(long squares = destinations; squares != 0; squares &= squares - 1){
+            final int destinationCoordinate = BitBoardUtils.firstSquare(squares);
+            if(board.isSquareOccupied(destinationCoordinate)){
+                legalMoves.add(new Move.AttackingMove(board, this, destinationCoordinate,
+                                                      board.getSquare(destinationCoordinate).getPiece()));
+            } else{
+                legalMoves.add(new Move.NormalMove(board, this, destinationCoordinate));
+            }
+        }
+        return Collections.unmodifiableList(legalMoves);
+    }
+
     // Nested enum class used for our toString testing print method.
     public enum PieceType{
         ROOK("R") {
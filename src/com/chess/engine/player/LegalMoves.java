@@ -0,0 +1,81 @@
+package com.chess.engine.player;
+
+import com.chess.engine.board.BitBoardUtils;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.MoveFactory;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.pieces.Piece.PieceType;
+import com.google.common.collect.ImmutableList;
+
+// The legal moves of one player, indexed by origin and destination square.
+// Per origin square we keep a bitmask of destinations and an array of moves in destination order, so a lookup
+// counts the destinations below the one asked for to find its slot. A Pawn promoting from the square has four
+// moves per destination, one for each PieceType a Pawn can promote to, in PieceType order.
+// All fields are final and never change after construction, so a Player can publish it to other threads without locking.
+final class LegalMoves {
+
+    private static final int PROMOTIONS_PER_DESTINATION = 4;
+
+    private final ImmutableList<Move> moves;
+    private final long[] destinationMasks = new long[BoardUtils.NUM_SQUARES];
+    private final Move[][] movesByOrigin = new Move[BoardUtils.NUM_SQUARES][];
+
+    // Materialise the first moveCount packed moves for the board. They must all belong to the same player.
+    LegalMoves(final Board board, final int[] packedMoves, final int moveCount){
+        final ImmutableList.Builder<Move> moves = ImmutableList.builderWithExpectedSize(moveCount);
+        final int[] movesPerOrigin = new int[BoardUtils.NUM_SQUARES];
+        for(int i = 0; i < moveCount; i++){
+            final int from = PackedMove.getFrom(packedMoves[i]);
+            this.destinationMasks[from] |= BitBoardUtils.squareMask(PackedMove.getTo(packedMoves[i]));
+            movesPerOrigin[from]++;
+        }
+        for(int i = 0; i < moveCount; i++){
+            final int packedMove = packedMoves[i];
+            final int from = PackedMove.getFrom(packedMove);
+            if(this.movesByOrigin[from] == null){
+                this.movesByOrigin[from] = new Move[movesPerOrigin[from]];
+            }
+            final Move move = MoveFactory.createMove(board, packedMove);
+            final int destinationIndex = destinationIndex(this.destinationMasks[from], PackedMove.getTo(packedMove));
+            if(PackedMove.isPromotion(packedMove)){
+                this.movesByOrigin[from][destinationIndex * PROMOTIONS_PER_DESTINATION +
+                                         PackedMove.getPromotionType(packedMove).ordinal()] = move;
+            } else{
+                this.movesByOrigin[from][destinationIndex] = move;
+            }
+            moves.add(move);
+        }
+        this.moves = moves.build();
+    }
+
+    ImmutableList<Move> getMoves(){
+        return this.moves;
+    }
+
+    // The legal move from one square to another, or Move.NULL_MOVE if there is none.
+    // Promotions are to the given piece type, or to a Queen when it is null. Any other move must pass null.
+    Move getMove(final int currentCoordinate, final int destinationCoordinate, final PieceType promotionType){
+        final long destinations = this.destinationMasks[currentCoordinate];
+        if(!BitBoardUtils.isSet(destinations, destinationCoordinate)){
+            return Move.NULL_MOVE;
+        }
+        final Move[] moves = this.movesByOrigin[currentCoordinate];
+        final int destinationIndex = destinationIndex(destinations, destinationCoordinate);
+        final boolean isPromotion = moves.length != BitBoardUtils.bitCount(destinations);
+        if(!isPromotion){
+            return promotionType == null ? moves[destinationIndex] : Move.NULL_MOVE;
+        }
+        final PieceType promotedTo = promotionType == null ? PieceType.QUEEN : promotionType;
+        if(promotedTo.ordinal() >= PROMOTIONS_PER_DESTINATION){
+            return Move.NULL_MOVE;
+        }
+        return moves[destinationIndex * PROMOTIONS_PER_DESTINATION + promotedTo.ordinal()];
+    }
+
+    // How many destinations of the mask lie below the given one.
+    private static int destinationIndex(final long destinations, final int destinationCoordinate){
+        return BitBoardUtils.bitCount(destinations & (BitBoardUtils.squareMask(destinationCoordinate) - 1));
+    }
+}
@@ -20,4 +20,12 @@ public class  MoveTransition {
     public MoveStatus getMoveStatus(){
         return this.moveStatus;
     }
+
+    public Board getTransitionBoard(){
+        return this.transitionBoard;
+    }
+
+    public Move getMove(){
+        return this.move;
+    }
 }
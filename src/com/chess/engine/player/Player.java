@@ -2,37 +2,34 @@ package com.chess.engine.player;
 
 import com.chess.engine.Color;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
 import com.chess.engine.pieces.King;
 import com.chess.engine.pieces.Piece;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
+import com.chess.engine.pieces.Piece.PieceType;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 
 public abstract class Player {
 
     protected final Board board;
     protected final King playerKing;
-    protected final Collection<Move> legalMoves;
-    private final boolean isInCheck;
 
-    Player(final Board board,
-           final Collection<Move> legalMoves,
-           final Collection<Move> opponentMoves){
-                                  
+    // Legal moves and check status are only worked out when first asked for, then kept.
+    // Many boards built by Move.execute are never asked for the moves of one side or even both,
+    // so generating every move for both sides up front was wasted work.
+    // A Board can be shared between threads: two threads racing here both compute the same immutable result,
+    // and LegalMoves is immutable with only final fields, so it is safe to publish without locking.
+    private LegalMoves legalMoves;
+    private int checkStatus = CHECK_UNKNOWN;
+
+    private static final int CHECK_UNKNOWN = 0;
+    private static final int IN_CHECK = 1;
+    private static final int NOT_IN_CHECK = 2;
+
+    Player(final Board board){
         this.board = board;
         this.playerKing = establishKing();
-        //  This can also be written with the Collections class:
-        //  playerLegals.addAll(calculateKingCastles(playerLegals, opponentLegals));
-        //  this.legalMoves = Collections.unmodifiableCollection(playerLegals);
-        //  But it will throw an UnsupportedOperationException for the .addAll method.
-        this.legalMoves = ImmutableList.copyOf(Iterables.concat(calculateKingCastles(legalMoves, opponentMoves)));
-        this.isInCheck = !Player.calculateAttacksOnTile(this.playerKing.getPiecePosition(), opponentMoves).isEmpty();
     }
 
     public King getPlayerKing(){
@@ -40,18 +37,39 @@ public abstract class Player {
     }
 
     public Collection<Move> getLegalMoves(){
-        return this.legalMoves;
+        return legalMoves().getMoves();
     }
 
-    // Get all the attacks currently on square. If there are attacks on the King available, our King is in check.
-    protected static Collection<Move> calculateAttacksOnTile(int piecePosition, Collection<Move> moves) {
-        final List<Move> attackMoves = new ArrayList<>();
-        for(final Move move: moves){
-            if(piecePosition == move.getDestinationCoordinate()){
-                attackMoves.add(move);
-            }
+    // The legal move from one square to another, or Move.NULL_MOVE if there is none. Promotions are to a Queen.
+    public Move getLegalMove(final int currentCoordinate, final int destinationCoordinate){
+        return legalMoves().getMove(currentCoordinate, destinationCoordinate, null);
+    }
+
+    // The legal move from one square to another, promoting to the given piece type when the move is a promotion.
+    public Move getLegalMove(final int currentCoordinate, final int destinationCoordinate, final PieceType promotionType){
+        return legalMoves().getMove(currentCoordinate, destinationCoordinate, promotionType);
+    }
+
+    private LegalMoves legalMoves(){
+        LegalMoves legalMoves = this.legalMoves;
+        if(legalMoves == null){
+            legalMoves = calculateLegalMoves();
+            this.legalMoves = legalMoves;
         }
-        return Collections.unmodifiableList(attackMoves);
+        return legalMoves;
+    }
+
+    // Only strictly legal moves, castles included, from the pin and check aware generator of SearchBoard.
+    // Moves that would leave the King in check never make it into the list.
+    private LegalMoves calculateLegalMoves(){
+        final int[] moves = new int[SearchBoard.MAX_MOVES];
+        final int moveCount = new SearchBoard(this.board, getColor()).generateLegalMoves(moves);
+        return new LegalMoves(this.board, moves, moveCount);
+    }
+
+    // Whether the opponent attacks a square. Needs none of the opponent's moves, see Board.isSquareAttacked.
+    protected boolean isAttackedByOpponent(final int squareCoordinate){
+        return this.board.isSquareAttacked(squareCoordinate, getColor().isWhite() ? Color.BLACK : Color.WHITE);
     }
 
     // To ensure that the player is in a legal "State", we will have to check if the King is
@@ -65,60 +83,57 @@ public abstract class Player {
         throw new RuntimeException("Not a valid board!");
     }
 
-    // A method to check if the move is in our list of legalmoves.
+    // A method to check if the move is in our list of legalmoves. Looks up the move's own squares instead of
+    // searching the whole list, so only one candidate is ever compared.
     public boolean isMoveLegal(final Move move){
-        return this.legalMoves.contains(move);
+        if(move == null || move.getMovedPiece() == null){
+            return false;
+        }
+        final PieceType promotionType = move instanceof Move.PawnPromotion ? ((Move.PawnPromotion) move).getPromotionType() : null;
+        return move.equals(getLegalMove(move.getCurrentCoordinate(), move.getDestinationCoordinate(), promotionType));
     }
 
     // When the players King is checked and needs to move the King to escape.
     public boolean isInCheck(){
-        return this.isInCheck;
+        if(this.checkStatus == CHECK_UNKNOWN){
+            this.checkStatus = isAttackedByOpponent(this.playerKing.getPiecePosition()) ? IN_CHECK : NOT_IN_CHECK;
+        }
+        return this.checkStatus == IN_CHECK;
     }
 
     // When the players King is already checked, but can't move anywhere that isn't checked either.
     public boolean isInCheckMate(){
-        return this.isInCheck && !hasEscapeMoves();
+        return isInCheck() && !hasEscapeMoves();
     }
 
     // Current players King is not checked, but doesn't have any escape moves/no moves to make.
     // The players only moves put the King in check.
     public boolean isInStaleMate(){
-        return !this.isInCheck && !hasEscapeMoves();
+        return !isInCheck() && !hasEscapeMoves();
     }
 
     public boolean isCastled(){
         return false;
     }
 
-    // If there are any moves to make, return true, when that move is done. Otherwise return false;
+    // Every move in the legal move list can be made, so there is an escape exactly when the list is not empty.
     protected boolean hasEscapeMoves(){
-        for(final Move move: this.legalMoves){
-            final MoveTransition transition = makeMove(move);
-            if(transition.getMoveStatus().isDone()){
-                return true;
-            }
-        }
-        return false;
+        return !getLegalMoves().isEmpty();
     }
 
 
     /* When making a legal move, we are constructing the new board layout/structure and need to pass all the values across.
-     * If the move is illegal, pass the SAME board back and say its illegal move
-     * Create the new board and check: are there any attacks on the players king that will leave it in check?
-     * Then we shouldn't allow the player to make the move.
-     * Otherwise return the new transition board.
+     * If the move is illegal, pass the SAME board back and say why: either the piece cannot move like that at all,
+     * or it can but doing so would leave the players King in check.
+     * The legal move list only holds moves that keep the King safe, so a legal move is executed without further checks.
      */
     public MoveTransition makeMove(final Move move){
         if(!isMoveLegal(move)) {
-            return new MoveTransition(this.board, move, MoveStatus.ILLEGAL_MOVE);
-        }
-        final Board transitionBoard = move.execute();
-        final Collection<Move> kingAttacks = Player.calculateAttacksOnTile(transitionBoard.currentPlayer().getOpponent().getPlayerKing().getPiecePosition(),
-                                                                           transitionBoard.currentPlayer().getLegalMoves());
-        if(!kingAttacks.isEmpty()){
-            return new MoveTransition(this.board, move, MoveStatus.LEAVES_PLAYER_IN_CHECK);
+            final boolean isPieceMove = move != null && move.getMovedPiece() != null &&
+                                        move.getMovedPiece().calcLegalMove(this.board).contains(move);
+            return new MoveTransition(this.board, move, isPieceMove ? MoveStatus.LEAVES_PLAYER_IN_CHECK : MoveStatus.ILLEGAL_MOVE);
         }
-        return new MoveTransition(transitionBoard, move, MoveStatus.DONE);
+        return new MoveTransition(move.execute(), move, MoveStatus.DONE);
     }
 
     // Get the pieces for a white or black player polymorphically
@@ -130,6 +145,4 @@ public abstract class Player {
     // Get the player itself
     public abstract Player getOpponent();
 
-    // Castle move
-    protected abstract Collection<Move> calculateKingCastles(Collection<Move> playerLegals, Collection<Move> opponentLegals);
 }
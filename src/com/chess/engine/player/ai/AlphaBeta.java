@@ -0,0 +1,193 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.TranspositionTable;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.MoveFactory;
+import com.chess.engine.board.SearchBoard;
+import com.chess.pgn.FenUtilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Negamax alpha-beta search on a SearchBoard with iterative deepening.
+// Every iteration searches one ply deeper than the last and starts with the previous principal variation,
+// which the transposition table hands back as the first move to try in each position along it.
+// The search stops at the depth limit, or as soon as the node or time budget runs out, in which case
+// the result of the last completed iteration is returned.
+// With more than one thread the search is a Lazy SMP search: helper threads search the same position on their
+// own boards and share only the transposition table, which lets the main thread cut off what they already searched.
+// The main thread's result is the one returned; the node count covers all threads.
+// An AlphaBeta keeps its workers' move lists and principal variation tables between searches, so it is not thread safe.
+public final class AlphaBeta implements MoveStrategy {
+
+    // A mate found n plies from the root scores MATE_SCORE - n, so shorter mates score higher.
+    public static final int MATE_SCORE = 30000;
+    public static final int MAX_PLY = 128;
+
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long maxTimeNanos;
+    private final TranspositionTable transpositionTable;
+    // Worker 0 runs on the calling thread, the others are the helpers.
+    private final SearchWorker[] workers;
+
+    private AlphaBeta(final Builder builder){
+        this.maxDepth = builder.maxDepth;
+        this.maxNodes = builder.maxNodes;
+        this.maxTimeNanos = builder.maxTimeMillis * 1_000_000;
+        this.transpositionTable = builder.transpositionTable != null ? builder.transpositionTable :
+                                  new TranspositionTable(Builder.DEFAULT_HASH_MEGABYTES);
+        this.workers = new SearchWorker[builder.threads];
+        for(int i = 0; i < this.workers.length; i++){
+            this.workers[i] = new SearchWorker(i, builder.evaluatorFactory.get(), this.transpositionTable);
+        }
+    }
+
+    @Override
+    public SearchResult execute(final Board board){
+        final long startTime = System.nanoTime();
+        final SearchLimits limits = new SearchLimits(this.maxNodes,
+                this.maxTimeNanos > 0 ? startTime + this.maxTimeNanos : Long.MAX_VALUE);
+        this.transpositionTable.newSearch();
+
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final Thread[] helpers = new Thread[this.workers.length - 1];
+        for(int i = 1; i < this.workers.length; i++){
+            this.workers[i].prepare(new SearchBoard(board), limits, this.maxDepth);
+            helpers[i - 1] = new Thread(this.workers[i], "search-helper-" + i);
+            helpers[i - 1].setDaemon(true);
+            helpers[i - 1].start();
+        }
+        final SearchWorker mainWorker = this.workers[0];
+        mainWorker.prepare(searchBoard, limits, this.maxDepth);
+        mainWorker.run();
+        // The helpers only ever help the main thread, once it is done so are they.
+        limits.stop();
+        joinAll(helpers);
+
+        long nodes = 0;
+        for(final SearchWorker worker: this.workers){
+            nodes += worker.getNodes();
+        }
+        int[] bestLine = mainWorker.getBestLine();
+        if(bestLine.length == 0){
+            // Not even the first iteration finished: play the first legal move rather than nothing.
+            final int[] moves = new int[SearchBoard.MAX_MOVES];
+            final int moveCount = searchBoard.generateLegalMoves(moves);
+            bestLine = moveCount > 0 ? new int[]{moves[0]} : bestLine;
+        }
+        final List<Move> line = materialise(board, bestLine);
+        return new SearchResult(line.isEmpty() ? Move.NULL_MOVE : line.get(0), mainWorker.getBestScore(),
+                                mainWorker.getCompletedDepth(), nodes, System.nanoTime() - startTime, line);
+    }
+
+    public int getThreads(){
+        return this.workers.length;
+    }
+
+    private static void joinAll(final Thread[] threads){
+        boolean interrupted = false;
+        for(final Thread thread: threads){
+            while(true){
+                try {
+                    thread.join();
+                    break;
+                } catch (final InterruptedException e) {
+                    // The helpers have already been told to stop, so they finish quickly: wait for them anyway.
+                    interrupted = true;
+                }
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Turn the packed line into Move objects, playing it out on immutable Boards to get each move's board.
+    private static List<Move> materialise(final Board board, final int[] line){
+        final List<Move> moves = new ArrayList<>(line.length);
+        Board position = board;
+        for(final int packedMove: line){
+            final Move move = MoveFactory.createMove(position, packedMove);
+            moves.add(move);
+            position = move.execute();
+        }
+        return Collections.unmodifiableList(moves);
+    }
+
+    // Usage: AlphaBeta <maxDepth> [maxTimeMillis] [threads] [fen]
+    // Searches the standard start position, or the given FEN, and prints the result.
+    public static void main(final String[] args){
+        final int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        final long maxTimeMillis = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        final int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        final Board board = args.length > 3 ? FenUtilities.createGameFromFEN(args[3]) : Board.createStandardBoard();
+        final MoveStrategy strategy = new Builder().setMaxDepth(maxDepth)
+                                                   .setMaxTimeMillis(maxTimeMillis)
+                                                   .setThreads(threads)
+                                                   .build();
+        final SearchResult result = strategy.execute(board);
+        System.out.println("Best move: " + result.getBestMove());
+        System.out.println(result);
+    }
+
+    // Builder for the search limits. A limit of 0 means no limit, but at least one of depth, nodes or time should be set.
+    public static class Builder{
+
+        static final int DEFAULT_HASH_MEGABYTES = 16;
+
+        int maxDepth = MAX_PLY - 1;
+        long maxNodes;
+        long maxTimeMillis;
+        int threads = 1;
+        Supplier<? extends BoardEvaluator> evaluatorFactory = TaperedEvaluator::new;
+        TranspositionTable transpositionTable;
+
+        public Builder(){
+        }
+
+        public Builder setMaxDepth(final int maxDepth){
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder setMaxNodes(final long maxNodes){
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
+        public Builder setMaxTimeMillis(final long maxTimeMillis){
+            this.maxTimeMillis = maxTimeMillis;
+            return this;
+        }
+
+        // The number of threads searching together, the calling thread included.
+        public Builder setThreads(final int threads){
+            if(threads < 1){
+                throw new IllegalArgumentException("At least one search thread is needed, got " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        // Every search thread gets an evaluator of its own from the factory, so evaluators may keep caches
+        // such as a pawn hash table without any locking. A stateless evaluator can be shared: () -> evaluator.
+        public Builder setEvaluator(final Supplier<? extends BoardEvaluator> evaluatorFactory){
+            this.evaluatorFactory = evaluatorFactory;
+            return this;
+        }
+
+        // Share a table between searches, e.g. the moves of one game, so later searches start from what earlier ones found.
+        public Builder setTranspositionTable(final TranspositionTable transpositionTable){
+            this.transpositionTable = transpositionTable;
+            return this;
+        }
+
+        public AlphaBeta build(){
+            return new AlphaBeta(this);
+        }
+    }
+}
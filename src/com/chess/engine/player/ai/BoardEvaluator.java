@@ -0,0 +1,9 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.SearchBoard;
+
+// Scores a position in centipawns from the point of view of the side to move, so that negamax can use it directly.
+public interface BoardEvaluator {
+
+    int evaluate(SearchBoard board);
+}
@@ -0,0 +1,38 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.book.OpeningBook;
+
+import java.util.Collections;
+import java.util.Random;
+
+// Plays from an opening book while the position is in it, and asks another strategy once it is not.
+// Book moves come back like any search result, depth and nodes 0, for the caller to play with Player.makeMove.
+public final class BookStrategy implements MoveStrategy {
+
+    private final OpeningBook book;
+    private final MoveStrategy fallback;
+    private final Random random;
+
+    public BookStrategy(final OpeningBook book, final MoveStrategy fallback){
+        this(book, fallback, new Random());
+    }
+
+    // A seeded Random makes the choice between book moves repeatable.
+    public BookStrategy(final OpeningBook book, final MoveStrategy fallback, final Random random){
+        this.book = book;
+        this.fallback = fallback;
+        this.random = random;
+    }
+
+    @Override
+    public SearchResult execute(final Board board){
+        final long startTime = System.nanoTime();
+        final Move bookMove = this.book.selectMove(board, this.random);
+        if(bookMove == Move.NULL_MOVE){
+            return this.fallback.execute(board);
+        }
+        return new SearchResult(bookMove, 0, 0, 0, System.nanoTime() - startTime, Collections.singletonList(bookMove));
+    }
+}
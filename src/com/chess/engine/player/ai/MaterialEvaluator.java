@@ -0,0 +1,28 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.Color;
+import com.chess.engine.board.BitBoardUtils;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+// Counts material only: the sum of the piece values of the side to move minus those of the opponent.
+public final class MaterialEvaluator implements BoardEvaluator {
+
+    // Centipawn values, indexed by PieceType ordinal: ROOK, KNIGHT, BISHOP, QUEEN, KING, PAWN.
+    // The King is never captured, so it is worth nothing here.
+    static final int[] PIECE_VALUES = {500, 320, 330, 900, 0, 100};
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    @Override
+    public int evaluate(final SearchBoard board){
+        final Color sideToMove = board.getSideToMove();
+        final Color opponent = sideToMove.isWhite() ? Color.BLACK : Color.WHITE;
+        int score = 0;
+        for(final PieceType pieceType: PIECE_TYPES){
+            score += PIECE_VALUES[pieceType.ordinal()] * (BitBoardUtils.bitCount(board.getPieceBitboard(sideToMove, pieceType)) -
+                                                          BitBoardUtils.bitCount(board.getPieceBitboard(opponent, pieceType)));
+        }
+        return score;
+    }
+}
@@ -0,0 +1,122 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.BitBoardUtils;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+// Decides the order a SearchWorker tries its moves in. Alpha-beta cuts off as soon as one move is good enough,
+// so the sooner the best move is tried, the fewer moves need searching at all.
+// The order is: the transposition table's move, captures and queen promotions by MVV-LVA (most valuable victim
+// first, cheapest attacker first among equal victims), the two killer moves of the ply, and then the remaining
+// quiet moves by how often the same piece moving to the same square caused a cutoff before (the history table).
+// Moves are scored once and then picked best-first one at a time. Most nodes cut off after a move or two,
+// so sorting the whole list would mostly sort moves that are never searched.
+final class MoveOrderer {
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int FIRST_KILLER_SCORE = 1 << 28;
+    private static final int SECOND_KILLER_SCORE = FIRST_KILLER_SCORE - 1;
+    // History scores stay below the killers: once an entry passes this, the whole table is halved.
+    private static final int MAX_HISTORY_SCORE = 1 << 20;
+
+    // Ordering values by PieceType ordinal: ROOK, KNIGHT, BISHOP, QUEEN, KING, PAWN.
+    // Knights and bishops count the same; the King only ever attacks, and is the last piece we want to capture with.
+    private static final int[] VICTIM_VALUES = {5, 3, 3, 9, 0, 1};
+    private static final int[] ATTACKER_VALUES = {5, 3, 3, 9, 10, 1};
+
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+
+    private final int[][] scores = new int[AlphaBeta.MAX_PLY][SearchBoard.MAX_MOVES];
+    private final int[][] killers = new int[AlphaBeta.MAX_PLY][2];
+    // Indexed by the moved piece's BitBoardUtils.pieceIndex and the destination square.
+    private final int[][] history = new int[2 * BitBoardUtils.NUM_PIECE_TYPES][64];
+
+    // Forget the killers of the last search, whose plies no longer line up with this one, and age the history
+    // so what was learned there still counts, but less than what this search finds.
+    void newSearch(){
+        for(final int[] plyKillers: this.killers){
+            plyKillers[0] = PackedMove.NO_MOVE;
+            plyKillers[1] = PackedMove.NO_MOVE;
+        }
+        ageHistory();
+    }
+
+    // Score the moves of one node. Must be called before picking them with nextMove.
+    void scoreMoves(final int[] moves, final int moveCount, final int ply, final int hashMove){
+        final int[] scores = this.scores[ply];
+        final int[] plyKillers = this.killers[ply];
+        for(int i = 0; i < moveCount; i++){
+            final int move = moves[i];
+            if(move == hashMove){
+                scores[i] = HASH_MOVE_SCORE;
+            } else if(PackedMove.isCapture(move) || PackedMove.getPromotionType(move) == PieceType.QUEEN){
+                scores[i] = CAPTURE_SCORE + captureValue(move);
+            } else if(move == plyKillers[0]){
+                scores[i] = FIRST_KILLER_SCORE;
+            } else if(move == plyKillers[1]){
+                scores[i] = SECOND_KILLER_SCORE;
+            } else {
+                scores[i] = this.history[PackedMove.getMovedPiece(move)][PackedMove.getTo(move)];
+            }
+        }
+    }
+
+    // Selection step: swap the best of the moves not tried yet into position index and return it.
+    int nextMove(final int[] moves, final int moveCount, final int index, final int ply){
+        final int[] scores = this.scores[ply];
+        int best = index;
+        for(int i = index + 1; i < moveCount; i++){
+            if(scores[i] > scores[best]){
+                best = i;
+            }
+        }
+        final int move = moves[best];
+        if(best != index){
+            moves[best] = moves[index];
+            moves[index] = move;
+            final int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return move;
+    }
+
+    // A move failed high. Captures and promotions are ordered by what they win, only quiet moves are remembered.
+    void recordCutoff(final int move, final int ply, final int depth){
+        if(PackedMove.isCapture(move) || PackedMove.isPromotion(move)){
+            return;
+        }
+        final int[] plyKillers = this.killers[ply];
+        if(plyKillers[0] != move){
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        // Deep cutoffs save more work than shallow ones, so they weigh more.
+        final int[] pieceHistory = this.history[PackedMove.getMovedPiece(move)];
+        final int to = PackedMove.getTo(move);
+        pieceHistory[to] += depth * depth;
+        if(pieceHistory[to] > MAX_HISTORY_SCORE){
+            ageHistory();
+        }
+    }
+
+    private void ageHistory(){
+        for(final int[] pieceHistory: this.history){
+            for(int square = 0; square < pieceHistory.length; square++){
+                pieceHistory[square] >>= 1;
+            }
+        }
+    }
+
+    // Most valuable victim first, then least valuable attacker. A queen promotion counts as winning a queen.
+    private static int captureValue(final int move){
+        final int capturedPiece = PackedMove.getCapturedPiece(move);
+        int victimValue = capturedPiece == SearchBoard.NO_PIECE ? 0 : VICTIM_VALUES[capturedPiece % BitBoardUtils.NUM_PIECE_TYPES];
+        if(PackedMove.getPromotionType(move) == PieceType.QUEEN){
+            victimValue += VICTIM_VALUES[QUEEN];
+        }
+        return victimValue * 16 - ATTACKER_VALUES[PackedMove.getMovedPiece(move) % BitBoardUtils.NUM_PIECE_TYPES];
+    }
+}
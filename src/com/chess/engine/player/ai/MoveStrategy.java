@@ -0,0 +1,10 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+
+// A way of choosing a move for the player on move.
+public interface MoveStrategy {
+
+    // Search the board and return the move found, with its score and search statistics.
+    SearchResult execute(Board board);
+}
@@ -0,0 +1,64 @@
+package com.chess.engine.player.ai;
+
+// A fixed-size cache of pawn structure evaluations, keyed by SearchBoard.getPawnHash().
+// Pawns move rarely compared to the other pieces, so most leaves of a search share their pawn structure with
+// thousands of others, and its evaluation only has to be worked out once.
+// Every entry is four longs: the key, the middlegame and endgame scores packed into one long, and each side's
+// passed pawns, which the evaluation needs again together with the pieces.
+// Entries are always replaced. A table belongs to one evaluator and so to one search thread: it is not thread safe.
+final class PawnHashTable {
+
+    static final int NOT_FOUND = -1;
+
+    private static final int LONGS_PER_ENTRY = 4;
+    private static final int BYTES_PER_ENTRY = LONGS_PER_ENTRY * Long.BYTES;
+
+    private final long[] table;
+    private final int entryMask;
+
+    PawnHashTable(final int sizeInMegabytes){
+        if(sizeInMegabytes < 1){
+            throw new IllegalArgumentException("A pawn hash table needs at least 1 MB, not " + sizeInMegabytes);
+        }
+        final long entries = Long.highestOneBit(((long) sizeInMegabytes << 20) / BYTES_PER_ENTRY);
+        final int entryCount = (int) Math.min(entries, 1 << 26);
+        this.table = new long[entryCount * LONGS_PER_ENTRY];
+        this.entryMask = entryCount - 1;
+        // A zero key is a real pawn structure, the one without pawns, so empty entries get a key no position has.
+        for(int i = 0; i < this.table.length; i += LONGS_PER_ENTRY){
+            this.table[i] = ~0L;
+        }
+    }
+
+    // The index of the entry for the pawn structure with this key, or NOT_FOUND.
+    int find(final long key){
+        final int index = index(key);
+        return this.table[index] == key ? index : NOT_FOUND;
+    }
+
+    // Store an evaluation and return the index of its entry.
+    int store(final long key, final int middlegameScore, final int endgameScore,
+              final long whitePassedPawns, final long blackPassedPawns){
+        final int index = index(key);
+        this.table[index] = key;
+        this.table[index + 1] = ((long) middlegameScore << 32) | (endgameScore & 0xFFFFFFFFL);
+        this.table[index + 2] = whitePassedPawns;
+        this.table[index + 3] = blackPassedPawns;
+        return index;
+    }
+
+    // Getters for an entry found or stored, from White's side.
+    int getMiddlegameScore(final int index){
+        return (int) (this.table[index + 1] >> 32);
+    }
+    int getEndgameScore(final int index){
+        return (int) this.table[index + 1];
+    }
+    long getPassedPawns(final int index, final boolean white){
+        return this.table[index + (white ? 2 : 3)];
+    }
+
+    private int index(final long key){
+        return ((int) key & this.entryMask) * LONGS_PER_ENTRY;
+    }
+}
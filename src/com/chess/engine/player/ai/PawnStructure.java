@@ -0,0 +1,113 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.Color;
+import com.chess.engine.board.BitBoardUtils;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.LeaperAttacks;
+
+// The pawn structure terms of the evaluation, which depend on nothing but the pawns:
+// doubled pawns (another own pawn ahead on the file), isolated pawns (no own pawn on a neighbouring file),
+// backward pawns (every neighbour has advanced past it and an enemy pawn guards the square in front)
+// and passed pawns (no enemy pawn ahead on its own or a neighbouring file), worth more the further they are.
+// Scores are in centipawns from White's side, with a middlegame and an endgame value like PieceSquareTables.
+final class PawnStructure {
+
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -25;
+    private static final int ISOLATED_MIDDLEGAME = -12;
+    private static final int ISOLATED_ENDGAME = -18;
+    private static final int BACKWARD_MIDDLEGAME = -8;
+    private static final int BACKWARD_ENDGAME = -12;
+    // By rank counted from the pawn's own side, 0 being its back rank.
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 8, 12, 20, 35, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 15, 25, 45, 75, 120, 0};
+
+    private static final long[] FILES = new long[BoardUtils.NUM_SQUARES_PER_ROW];
+    private static final long[] ADJACENT_FILES = new long[BoardUtils.NUM_SQUARES_PER_ROW];
+    // By color ordinal and square: the squares in front of a pawn on its file, and on the files next to it.
+    private static final long[][] FORWARD_FILE = new long[2][BoardUtils.NUM_SQUARES];
+    private static final long[][] FORWARD_ADJACENT_FILES = new long[2][BoardUtils.NUM_SQUARES];
+
+    static{
+        for(int square = 0; square < BoardUtils.NUM_SQUARES; square++){
+            FILES[square % BoardUtils.NUM_SQUARES_PER_ROW] |= BitBoardUtils.squareMask(square);
+        }
+        for(int file = 0; file < BoardUtils.NUM_SQUARES_PER_ROW; file++){
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0) | (file < BoardUtils.NUM_SQUARES_PER_ROW - 1 ? FILES[file + 1] : 0);
+        }
+        for(int square = 0; square < BoardUtils.NUM_SQUARES; square++){
+            final int file = square % BoardUtils.NUM_SQUARES_PER_ROW;
+            // Square 0 is a8, so White's pawns advance towards the lower rows and Black's towards the higher ones.
+            final long whiteAhead = rowsBefore(square / BoardUtils.NUM_SQUARES_PER_ROW);
+            final long blackAhead = ~rowsBefore(square / BoardUtils.NUM_SQUARES_PER_ROW + 1);
+            FORWARD_FILE[Color.WHITE.ordinal()][square] = whiteAhead & FILES[file];
+            FORWARD_FILE[Color.BLACK.ordinal()][square] = blackAhead & FILES[file];
+            FORWARD_ADJACENT_FILES[Color.WHITE.ordinal()][square] = whiteAhead & ADJACENT_FILES[file];
+            FORWARD_ADJACENT_FILES[Color.BLACK.ordinal()][square] = blackAhead & ADJACENT_FILES[file];
+        }
+    }
+
+    private PawnStructure(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    // Evaluate the structure, store it in the table under the key and return the index of its entry.
+    static int evaluate(final long whitePawns, final long blackPawns, final long key, final PawnHashTable table){
+        int middlegameScore = 0;
+        int endgameScore = 0;
+        long whitePassedPawns = 0;
+        long blackPassedPawns = 0;
+        for(final Color color: Color.values()){
+            final boolean white = color.isWhite();
+            final int us = color.ordinal();
+            final long own = white ? whitePawns : blackPawns;
+            final long enemy = white ? blackPawns : whitePawns;
+            final int sign = white ? 1 : -1;
+            int middlegame = 0;
+            int endgame = 0;
+            long passedPawns = 0;
+            for(long pawns = own; pawns != 0; pawns &= pawns - 1){
+                final int square = BitBoardUtils.firstSquare(pawns);
+                final int file = square % BoardUtils.NUM_SQUARES_PER_ROW;
+                final long forwardFile = FORWARD_FILE[us][square];
+                if((forwardFile & own) != 0){
+                    middlegame += DOUBLED_MIDDLEGAME;
+                    endgame += DOUBLED_ENDGAME;
+                }
+                if((ADJACENT_FILES[file] & own) == 0){
+                    middlegame += ISOLATED_MIDDLEGAME;
+                    endgame += ISOLATED_ENDGAME;
+                } else if((ADJACENT_FILES[file] & ~FORWARD_ADJACENT_FILES[us][square] & own) == 0 &&
+                          (LeaperAttacks.pawnAttacks(color, square + color.getDirection() * BoardUtils.NUM_SQUARES_PER_ROW) & enemy) != 0){
+                    middlegame += BACKWARD_MIDDLEGAME;
+                    endgame += BACKWARD_ENDGAME;
+                }
+                if(((forwardFile | FORWARD_ADJACENT_FILES[us][square]) & enemy) == 0){
+                    final int rank = relativeRank(color, square);
+                    middlegame += PASSED_MIDDLEGAME[rank];
+                    endgame += PASSED_ENDGAME[rank];
+                    passedPawns |= BitBoardUtils.squareMask(square);
+                }
+            }
+            middlegameScore += sign * middlegame;
+            endgameScore += sign * endgame;
+            if(white){
+                whitePassedPawns = passedPawns;
+            } else{
+                blackPassedPawns = passedPawns;
+            }
+        }
+        return table.store(key, middlegameScore, endgameScore, whitePassedPawns, blackPassedPawns);
+    }
+
+    // The rank of the square counted from the color's own back rank, 0 to 7.
+    static int relativeRank(final Color color, final int square){
+        final int row = square / BoardUtils.NUM_SQUARES_PER_ROW;
+        return color.isWhite() ? BoardUtils.NUM_SQUARES_PER_ROW - 1 - row : row;
+    }
+
+    // All squares on the rows above the given one, row 0 being the eighth rank.
+    private static long rowsBefore(final int row){
+        return row == 0 ? 0 : -1L >>> (BoardUtils.NUM_SQUARES - row * BoardUtils.NUM_SQUARES_PER_ROW);
+    }
+}
@@ -0,0 +1,36 @@
+package com.chess.engine.player.ai;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// The node and time budget of one search, shared by all threads searching together.
+// Threads report their nodes in batches, so the shared counter is only touched once every few thousand nodes.
+final class SearchLimits {
+
+    private final long maxNodes;
+    private final long deadline;
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean stopped;
+
+    // A maxNodes of 0 means no node limit, a deadline of Long.MAX_VALUE no time limit.
+    SearchLimits(final long maxNodes, final long deadline){
+        this.maxNodes = maxNodes;
+        this.deadline = deadline;
+    }
+
+    // Add a batch of searched nodes and report whether the search has to stop.
+    boolean addNodes(final long batch){
+        final long totalNodes = this.nodes.addAndGet(batch);
+        if((this.maxNodes > 0 && totalNodes >= this.maxNodes) || System.nanoTime() >= this.deadline){
+            this.stopped = true;
+        }
+        return this.stopped;
+    }
+
+    boolean isStopped(){
+        return this.stopped;
+    }
+
+    void stop(){
+        this.stopped = true;
+    }
+}
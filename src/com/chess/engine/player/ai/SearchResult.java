@@ -0,0 +1,60 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Move;
+
+import java.util.List;
+
+// What a MoveStrategy found: the move to play, its score for the side to move, the principal variation it expects
+// to follow, how deep the last completed iteration went and how many positions it took.
+public final class SearchResult {
+
+    private final Move bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final List<Move> principalVariation;
+
+    SearchResult(final Move bestMove,
+                 final int score,
+                 final int depth,
+                 final long nodes,
+                 final long elapsedNanos,
+                 final List<Move> principalVariation){
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.principalVariation = principalVariation;
+    }
+
+    // Getters
+    public Move getBestMove(){
+        return this.bestMove;
+    }
+    public int getScore(){
+        return this.score;
+    }
+    public int getDepth(){
+        return this.depth;
+    }
+    public long getNodes(){
+        return this.nodes;
+    }
+    public long getElapsedMillis(){
+        return this.elapsedNanos / 1_000_000;
+    }
+    public long getNodesPerSecond(){
+        return this.elapsedNanos == 0 ? 0 : (long) (this.nodes * 1e9 / this.elapsedNanos);
+    }
+    public List<Move> getPrincipalVariation(){
+        return this.principalVariation;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("depth %d score %d nodes %d time %d ms nps %d pv %s",
+                this.depth, this.score, this.nodes, getElapsedMillis(), getNodesPerSecond(), this.principalVariation);
+    }
+}
@@ -0,0 +1,50 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.TranspositionTable;
+import com.chess.engine.board.Board;
+import com.chess.engine.perft.PerftPosition;
+import com.chess.engine.perft.PerftSuite;
+import com.chess.pgn.FenUtilities;
+
+// Measures how the Lazy SMP search scales: searches the perft reference positions to a fixed depth with
+// 1, 2, 4, ... threads and reports the time to reach that depth, the nodes per second and the speedup over one thread.
+// Every run gets a fresh transposition table, so no run profits from what an earlier one left behind.
+public final class SearchScaling {
+
+    private static final int HASH_MEGABYTES = 64;
+
+    private SearchScaling(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    // Usage: SearchScaling [depth] [maxThreads]
+    // maxThreads defaults to the number of available processors.
+    public static void main(final String[] args){
+        final int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        final int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        // Warm up the JIT first, or the first single thread runs are measured in the interpreter.
+        new AlphaBeta.Builder().setMaxDepth(depth).build().execute(Board.createStandardBoard());
+
+        System.out.printf("%-20s %7s %10s %12s %12s %8s%n", "Position", "Threads", "Time (ms)", "Nodes", "Nodes/s", "Speedup");
+        for(final PerftPosition position: PerftSuite.REFERENCE_POSITIONS){
+            final Board board = FenUtilities.createGameFromFEN(position.getFen());
+            long singleThreadNanos = 0;
+            for(int threads = 1; threads <= maxThreads; threads *= 2){
+                final AlphaBeta strategy = new AlphaBeta.Builder().setMaxDepth(depth)
+                                                                  .setThreads(threads)
+                                                                  .setTranspositionTable(new TranspositionTable(HASH_MEGABYTES))
+                                                                  .build();
+                final long startTime = System.nanoTime();
+                final SearchResult result = strategy.execute(board);
+                final long elapsedNanos = System.nanoTime() - startTime;
+                if(threads == 1){
+                    singleThreadNanos = elapsedNanos;
+                }
+                System.out.printf("%-20s %7d %10d %12d %12d %8.2f%n", position.getName(), threads,
+                        elapsedNanos / 1_000_000, result.getNodes(), result.getNodesPerSecond(),
+                        (double) singleThreadNanos / elapsedNanos);
+            }
+        }
+    }
+}
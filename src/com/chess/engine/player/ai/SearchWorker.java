@@ -0,0 +1,259 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.TranspositionTable;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+// One thread's iterative deepening alpha-beta search, on its own SearchBoard with its own move lists and
+// principal variation table. The transposition table and the search limits are shared with the other workers.
+// Lazy SMP: every worker searches the same root, and they help each other only through the shared table.
+// Helpers are staggered so half of them run one ply ahead of the main worker, filling the table with results
+// the main worker will probe on its next iteration.
+final class SearchWorker implements Runnable {
+
+    private static final int MATE_SCORE = AlphaBeta.MATE_SCORE;
+    private static final int MAX_PLY = AlphaBeta.MAX_PLY;
+    private static final int INFINITY = 32000;
+    private static final int DRAW_SCORE = 0;
+    // Scores beyond this are mates, whose distance to mate has to be stored relative to the position, not the root.
+    private static final int MATE_BOUND = MATE_SCORE - MAX_PLY;
+    // Nodes are reported to the shared limits in batches of this many + 1.
+    private static final int NODE_BATCH_MASK = 2047;
+
+    private final int id;
+    private final BoardEvaluator evaluator;
+    private final TranspositionTable transpositionTable;
+
+    private final int[][] moveLists = new int[MAX_PLY][SearchBoard.MAX_MOVES];
+    private final MoveOrderer moveOrderer = new MoveOrderer();
+    // Triangular principal variation table: row ply holds the best line found from that ply on.
+    private final int[][] principalVariation = new int[MAX_PLY][MAX_PLY];
+    private final int[] principalVariationLength = new int[MAX_PLY];
+    private final int[] exchangeGains = new int[StaticExchange.MAX_EXCHANGE_LENGTH];
+
+    private SearchBoard board;
+    private SearchLimits limits;
+    private int maxDepth;
+    private long nodes;
+    private boolean stopped;
+
+    private int[] bestLine;
+    private int bestScore;
+    private int completedDepth;
+
+    SearchWorker(final int id, final BoardEvaluator evaluator, final TranspositionTable transpositionTable){
+        this.id = id;
+        this.evaluator = evaluator;
+        this.transpositionTable = transpositionTable;
+    }
+
+    // Set up the next search. Must be called before run().
+    void prepare(final SearchBoard board, final SearchLimits limits, final int maxDepth){
+        this.board = board;
+        this.limits = limits;
+        this.maxDepth = Math.min(maxDepth, MAX_PLY - 1);
+        this.nodes = 0;
+        this.stopped = false;
+        this.bestLine = new int[0];
+        this.bestScore = 0;
+        this.completedDepth = 0;
+        this.moveOrderer.newSearch();
+    }
+
+    @Override
+    public void run(){
+        for(int depth = 1 + (this.id % 2); depth <= this.maxDepth; depth++){
+            final int score = search(depth, 0, -INFINITY, INFINITY);
+            // An interrupted iteration has only looked at some of the moves, so its result cannot be trusted.
+            if(this.stopped || this.limits.isStopped()){
+                break;
+            }
+            this.bestLine = copyPrincipalVariation();
+            this.bestScore = score;
+            this.completedDepth = depth;
+            // Iterative deepening finds the shortest mate first, searching deeper cannot improve on it.
+            if(Math.abs(score) >= MATE_BOUND){
+                break;
+            }
+        }
+    }
+
+    // Getters for the result of the last completed iteration.
+    int[] getBestLine(){
+        return this.bestLine;
+    }
+    int getBestScore(){
+        return this.bestScore;
+    }
+    int getCompletedDepth(){
+        return this.completedDepth;
+    }
+    long getNodes(){
+        return this.nodes;
+    }
+
+    private int search(final int depth, final int ply, int alpha, final int beta){
+        this.principalVariationLength[ply] = ply;
+        final SearchBoard board = this.board;
+        if(ply > 0 && (board.getHalfmoveClock() >= 100 || board.isRepetition())){
+            return DRAW_SCORE;
+        }
+        if(depth <= 0){
+            return quiescence(ply, alpha, beta);
+        }
+        if(countNode()){
+            return 0;
+        }
+        if(ply >= MAX_PLY - 1){
+            return this.evaluator.evaluate(board);
+        }
+
+        final long key = board.getZobristHash();
+        final long entry = this.transpositionTable.probe(key);
+        int hashMove = PackedMove.NO_MOVE;
+        if(entry != TranspositionTable.NO_ENTRY){
+            hashMove = TranspositionTable.getMove(entry);
+            // The root always searches, so there is always a move and a principal variation to return.
+            if(ply > 0 && TranspositionTable.getDepth(entry) >= depth){
+                final int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                final int bound = TranspositionTable.getBound(entry);
+                if(bound == TranspositionTable.BOUND_EXACT ||
+                   (bound == TranspositionTable.BOUND_LOWER && score >= beta) ||
+                   (bound == TranspositionTable.BOUND_UPPER && score <= alpha)){
+                    return score;
+                }
+            }
+        }
+
+        final int[] moves = this.moveLists[ply];
+        final int moveCount = board.generateLegalMoves(moves);
+        if(moveCount == 0){
+            return board.isInCheck() ? -MATE_SCORE + ply : DRAW_SCORE;
+        }
+        this.moveOrderer.scoreMoves(moves, moveCount, ply, hashMove);
+
+        final int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = PackedMove.NO_MOVE;
+        for(int i = 0; i < moveCount; i++){
+            final int move = this.moveOrderer.nextMove(moves, moveCount, i, ply);
+            board.makeMove(move);
+            final int score = -search(depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if(this.stopped){
+                return 0;
+            }
+            if(score > bestScore){
+                bestScore = score;
+                bestMove = move;
+                if(score > alpha){
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if(score >= beta){
+                        this.moveOrderer.recordCutoff(move, ply, depth);
+                        break;
+                    }
+                }
+            }
+        }
+
+        final int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER :
+                          bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        this.transpositionTable.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    // Past the search depth only captures and promotions are searched, until the position is quiet, so the
+    // evaluation is never taken in the middle of an exchange. Not capturing is always an option, so the static
+    // evaluation (standing pat) is a lower bound on the score, which often cuts the node off at once.
+    // Captures that lose material by static exchange evaluation are not searched at all.
+    // In check there is no standing pat: every way out of check is searched, and no way out is mate.
+    private int quiescence(final int ply, int alpha, final int beta){
+        this.principalVariationLength[ply] = ply;
+        if(countNode()){
+            return 0;
+        }
+        final SearchBoard board = this.board;
+        if(ply >= MAX_PLY - 1){
+            return this.evaluator.evaluate(board);
+        }
+        final boolean inCheck = board.isInCheck();
+        int bestScore = -INFINITY;
+        if(!inCheck){
+            bestScore = this.evaluator.evaluate(board);
+            if(bestScore >= beta){
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+        }
+
+        final int[] moves = this.moveLists[ply];
+        final int moveCount = board.generateLegalCaptures(moves);
+        if(moveCount == 0 && inCheck){
+            return -MATE_SCORE + ply;
+        }
+        this.moveOrderer.scoreMoves(moves, moveCount, ply, PackedMove.NO_MOVE);
+        for(int i = 0; i < moveCount; i++){
+            final int move = this.moveOrderer.nextMove(moves, moveCount, i, ply);
+            if(!inCheck && (isUnderPromotion(move) || StaticExchange.evaluate(board, move, this.exchangeGains) < 0)){
+                continue;
+            }
+            board.makeMove(move);
+            final int score = -quiescence(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if(this.stopped){
+                return 0;
+            }
+            if(score > bestScore){
+                bestScore = score;
+                if(score > alpha){
+                    alpha = score;
+                    if(score >= beta){
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    // Count a node and report whether the search has been stopped. Nodes go to the shared limits in batches.
+    private boolean countNode(){
+        if((++this.nodes & NODE_BATCH_MASK) == 0 && this.limits.addNodes(NODE_BATCH_MASK + 1)){
+            this.stopped = true;
+        }
+        return this.stopped;
+    }
+
+    // A Queen is worth more than any other piece, so the other promotions only matter in the rare positions
+    // a full-width search will find them in.
+    private static boolean isUnderPromotion(final int move){
+        return PackedMove.isPromotion(move) && PackedMove.getPromotionType(move) != PieceType.QUEEN;
+    }
+
+    private void updatePrincipalVariation(final int ply, final int move){
+        final int[] line = this.principalVariation[ply];
+        final int[] childLine = this.principalVariation[ply + 1];
+        line[ply] = move;
+        final int childLength = this.principalVariationLength[ply + 1];
+        System.arraycopy(childLine, ply + 1, line, ply + 1, childLength - (ply + 1));
+        this.principalVariationLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    private int[] copyPrincipalVariation(){
+        final int[] line = new int[this.principalVariationLength[0]];
+        System.arraycopy(this.principalVariation[0], 0, line, 0, line.length);
+        return line;
+    }
+
+    // Mate scores count plies from the root. The table is shared between positions at different plies,
+    // so it stores them counted from the position itself instead.
+    private static int scoreToTable(final int score, final int ply){
+        return score >= MATE_BOUND ? score + ply : score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int scoreFromTable(final int score, final int ply){
+        return score >= MATE_BOUND ? score - ply : score <= -MATE_BOUND ? score + ply : score;
+    }
+}
@@ -0,0 +1,90 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.Color;
+import com.chess.engine.board.BitBoardUtils;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+// Static exchange evaluation: the material a capture wins or loses once both sides have recaptured on its
+// square for as long as it pays, without making any moves.
+// The exchange is played out on an occupancy bitboard. Each side recaptures with its least valuable attacker,
+// and taking an attacker off the occupancy uncovers any slider lined up behind it. Either side may stop
+// recapturing when that is better for it, which the swap list resolves backwards at the end.
+// Pins and checks are ignored, as are promotions by the recapturing pawns.
+final class StaticExchange {
+
+    // Cheapest first: the order a side picks its recapturing piece in.
+    private static final PieceType[] RECAPTURE_ORDER = {PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP,
+                                                        PieceType.ROOK, PieceType.QUEEN, PieceType.KING};
+    private static final int KING_VALUE = 20000;
+    // Two sides with at most 16 pieces each can capture on one square no more than 32 times.
+    static final int MAX_EXCHANGE_LENGTH = 32;
+
+    private StaticExchange(){
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    // The material balance of the capture for the side making it, in centipawns. Negative means it loses material.
+    // gain is scratch space of at least MAX_EXCHANGE_LENGTH entries, kept by the caller so that quiescence does not
+    // allocate a swap list for every capture.
+    static int evaluate(final SearchBoard board, final int move, final int[] gain){
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+
+        long occupancy = board.getOccupancy() ^ BitBoardUtils.squareMask(from);
+        final int capturedPiece = PackedMove.getCapturedPiece(move);
+        gain[0] = capturedPiece == SearchBoard.NO_PIECE ? 0 : value(capturedPiece % BitBoardUtils.NUM_PIECE_TYPES);
+        int pieceOnSquare = value(PackedMove.getMovedPiece(move) % BitBoardUtils.NUM_PIECE_TYPES);
+        if(PackedMove.isEnPassant(move)){
+            // The captured pawn is not on the destination square, and has to come off the board all the same.
+            occupancy ^= BitBoardUtils.squareMask(to - board.getSideToMove().getDirection() * BoardUtils.NUM_SQUARES_PER_ROW);
+        }
+        if(PackedMove.isPromotion(move)){
+            final int promotionValue = value(PackedMove.getPromotionType(move).ordinal());
+            gain[0] += promotionValue - value(PieceType.PAWN.ordinal());
+            pieceOnSquare = promotionValue;
+        }
+
+        Color side = board.getSideToMove().isWhite() ? Color.BLACK : Color.WHITE;
+        long attackers = board.attackersOf(to, occupancy);
+        int depth = 0;
+        while(depth < MAX_EXCHANGE_LENGTH - 1){
+            final long sideAttackers = attackers & board.getOccupancy(side);
+            if(sideAttackers == 0){
+                break;
+            }
+            PieceType recapturer = null;
+            long recapturers = 0;
+            for(final PieceType pieceType: RECAPTURE_ORDER){
+                recapturers = sideAttackers & board.getPieceBitboard(side, pieceType);
+                if(recapturers != 0){
+                    recapturer = pieceType;
+                    break;
+                }
+            }
+            final Color opponent = side.isWhite() ? Color.BLACK : Color.WHITE;
+            // The King may only recapture on a square the opponent no longer attacks.
+            if(recapturer == PieceType.KING && (attackers & board.getOccupancy(opponent)) != 0){
+                break;
+            }
+            depth++;
+            gain[depth] = pieceOnSquare - gain[depth - 1];
+            occupancy ^= recapturers & -recapturers;
+            attackers = board.attackersOf(to, occupancy);
+            pieceOnSquare = value(recapturer.ordinal());
+            side = opponent;
+        }
+        // Each side only recaptures when that beats stopping, working back from the end of the exchange.
+        while(depth > 0){
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    private static int value(final int pieceTypeOrdinal){
+        return pieceTypeOrdinal == PieceType.KING.ordinal() ? KING_VALUE : MaterialEvaluator.PIECE_VALUES[pieceTypeOrdinal];
+    }
+}
@@ -0,0 +1,70 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.Color;
+import com.chess.engine.board.BitBoardUtils;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.PieceSquareTables;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+// Material, piece-square values and pawn structure, blended between middlegame and endgame by how much material
+// is left. The SearchBoard keeps the material and piece-square sums up to date as moves are made and unmade,
+// and the pawn structure comes from a pawn hash table, so most leaves cost a table lookup and a few multiplies.
+// Only the term that needs the pieces as well as the pawns is worked out at every leaf: in the endgame a passed
+// pawn is worth more the closer its own King is to the square in front of it, and the further the enemy King.
+// Each evaluator has its own pawn hash table, so it must only be used by one thread at a time.
+public final class TaperedEvaluator implements BoardEvaluator {
+
+    static final int DEFAULT_PAWN_HASH_MEGABYTES = 1;
+
+    // Per rank of the pawn, per square of King distance.
+    private static final int PASSED_PAWN_KING_DISTANCE_WEIGHT = 2;
+
+    private final PawnHashTable pawnHashTable;
+
+    public TaperedEvaluator(){
+        this(DEFAULT_PAWN_HASH_MEGABYTES);
+    }
+
+    public TaperedEvaluator(final int pawnHashMegabytes){
+        this.pawnHashTable = new PawnHashTable(pawnHashMegabytes);
+    }
+
+    @Override
+    public int evaluate(final SearchBoard board){
+        final long pawnHash = board.getPawnHash();
+        int entry = this.pawnHashTable.find(pawnHash);
+        if(entry == PawnHashTable.NOT_FOUND){
+            entry = PawnStructure.evaluate(board.getPieceBitboard(Color.WHITE, PieceType.PAWN),
+                                           board.getPieceBitboard(Color.BLACK, PieceType.PAWN), pawnHash, this.pawnHashTable);
+        }
+        final int middlegameScore = board.getMiddlegameScore() + this.pawnHashTable.getMiddlegameScore(entry);
+        final int endgameScore = board.getEndgameScore() + this.pawnHashTable.getEndgameScore(entry) +
+                                 passedPawnKingDistances(board, this.pawnHashTable.getPassedPawns(entry, true), Color.WHITE) -
+                                 passedPawnKingDistances(board, this.pawnHashTable.getPassedPawns(entry, false), Color.BLACK);
+        final int score = PieceSquareTables.taper(middlegameScore, endgameScore, board.getGamePhase());
+        return board.getSideToMove().isWhite() ? score : -score;
+    }
+
+    private static int passedPawnKingDistances(final SearchBoard board, final long passedPawns, final Color color){
+        if(passedPawns == 0){
+            return 0;
+        }
+        final int ownKing = BitBoardUtils.firstSquare(board.getPieceBitboard(color, PieceType.KING));
+        final int enemyKing = BitBoardUtils.firstSquare(board.getPieceBitboard(color.isWhite() ? Color.BLACK : Color.WHITE, PieceType.KING));
+        int score = 0;
+        for(long pawns = passedPawns; pawns != 0; pawns &= pawns - 1){
+            final int square = BitBoardUtils.firstSquare(pawns);
+            final int stopSquare = square + color.getDirection() * BoardUtils.NUM_SQUARES_PER_ROW;
+            score += PASSED_PAWN_KING_DISTANCE_WEIGHT * PawnStructure.relativeRank(color, square) *
+                     (distance(enemyKing, stopSquare) - distance(ownKing, stopSquare));
+        }
+        return score;
+    }
+
+    // The number of King moves between the squares on an empty board.
+    private static int distance(final int from, final int to){
+        return Math.max(Math.abs(from / BoardUtils.NUM_SQUARES_PER_ROW - to / BoardUtils.NUM_SQUARES_PER_ROW),
+                        Math.abs(from % BoardUtils.NUM_SQUARES_PER_ROW - to % BoardUtils.NUM_SQUARES_PER_ROW));
+    }
+}
@@ -0,0 +1,266 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.Color;
+import com.chess.engine.board.BitBoardUtils;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// The value of every position of one set of pieces, e.g. KQvK (White King and Queen against the lone Black King),
+// for both sides to move. Castling and en passant are not part of any position.
+// One byte per position, held off the heap: a direct buffer while generating, a read-only mapping once loaded.
+// A position's index is the side to move followed by the square of every piece in signature order, six bits each:
+// side * 64^n + square(0) * 64^(n-1) + ... + square(n-1). Every position has its own index and the index is worked
+// out from the board, so a probe costs one lookup. Positions that cannot occur (pieces sharing a square, pawns on
+// the first or last rank, the side not on move in check, two like pieces out of square order) are marked ILLEGAL.
+// A byte is DRAW, ILLEGAL, or 1 + the distance to mate in plies from the side to move's view: an odd distance is
+// a win for the side to move, an even one a loss, 0 being checkmated already.
+public final class Tablebase {
+
+    public static final int NOT_AVAILABLE = -1;
+    public static final int DRAW = 0;
+    public static final int ILLEGAL = 0xFF;
+    // Five pieces would need 2 * 64^5 bytes, more than one buffer holds.
+    public static final int MAX_PIECES = 4;
+    public static final int MAX_DISTANCE_TO_MATE = ILLEGAL - 2;
+
+    // "TBL1"
+    private static final int MAGIC = 0x54424C31;
+    private static final int HEADER_BYTES = 16;
+    // Each side's pieces after its King, in this order.
+    private static final PieceType[] SIGNATURE_ORDER = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP,
+                                                        PieceType.KNIGHT, PieceType.PAWN};
+    private static final int SQUARE_BITS = 6;
+    private static final int MATERIAL_BITS = 4;
+
+    private final String signature;
+    private final int[] pieces;
+    private final long materialKey;
+    private final int positionsPerSide;
+    private final ByteBuffer values;
+
+    Tablebase(final String signature, final ByteBuffer values){
+        this.pieces = parseSignature(signature);
+        this.signature = signatureOf(this.pieces);
+        this.materialKey = materialKey(this.pieces);
+        this.positionsPerSide = 1 << (SQUARE_BITS * this.pieces.length);
+        if(values.capacity() != 2 * this.positionsPerSide){
+            throw new IllegalArgumentException(this.signature + " has " + 2 * this.positionsPerSide + " positions, not " +
+                                               values.capacity());
+        }
+        this.values = values;
+    }
+
+    // A table of the signature with every position still unresolved, for the generator to fill.
+    static Tablebase allocate(final String signature){
+        final int pieceCount = parseSignature(signature).length;
+        return new Tablebase(signature, ByteBuffer.allocateDirect(2 << (SQUARE_BITS * pieceCount)));
+    }
+
+    public static Tablebase load(final Path file) throws IOException{
+        try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while(header.hasRemaining()){
+                if(channel.read(header) < 0){
+                    throw new IOException(file + " is too short to be a tablebase");
+                }
+            }
+            header.flip();
+            if(header.getInt() != MAGIC){
+                throw new IOException(file + " is not a tablebase");
+            }
+            final int pieceCount = header.get();
+            if(pieceCount < 2 || pieceCount > MAX_PIECES){
+                throw new IOException(file + " has " + pieceCount + " pieces");
+            }
+            final int[] pieces = new int[pieceCount];
+            for(int i = 0; i < pieceCount; i++){
+                pieces[i] = header.get();
+            }
+            // The values stay in the page cache, the mapping outlives the channel.
+            return new Tablebase(signatureOf(pieces), channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES,
+                                                                  channel.size() - HEADER_BYTES));
+        }
+    }
+
+    public void write(final Path file) throws IOException{
+        try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                          StandardOpenOption.TRUNCATE_EXISTING)){
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).put((byte) this.pieces.length);
+            for(final int piece: this.pieces){
+                header.put((byte) piece);
+            }
+            header.clear();
+            while(header.hasRemaining()){
+                channel.write(header);
+            }
+            final ByteBuffer data = this.values.duplicate();
+            data.clear();
+            while(data.hasRemaining()){
+                channel.write(data);
+            }
+        }
+    }
+
+    // The value of the position on the board, or NOT_AVAILABLE when its pieces are not this table's,
+    // or it has castling rights or an en passant square.
+    public int probe(final SearchBoard board){
+        if(materialKey(board) != this.materialKey || board.getCastlingRights() != 0 ||
+           board.getEnPassantSquare() != SearchBoard.NO_SQUARE){
+            return NOT_AVAILABLE;
+        }
+        return value(index(board));
+    }
+
+    public int probe(final Board board){
+        return probe(new SearchBoard(board));
+    }
+
+    public String getSignature(){
+        return this.signature;
+    }
+
+    public long getMaterialKey(){
+        return this.materialKey;
+    }
+
+    public int getPositionCount(){
+        return 2 * this.positionsPerSide;
+    }
+
+    public static boolean isWin(final int value){
+        return value > DRAW && value < ILLEGAL && (value - 1) % 2 == 1;
+    }
+
+    public static boolean isLoss(final int value){
+        return value > DRAW && value < ILLEGAL && (value - 1) % 2 == 0;
+    }
+
+    // The plies to mate of a win or loss, or -1 for anything else.
+    public static int distanceToMate(final int value){
+        return value > DRAW && value < ILLEGAL ? value - 1 : -1;
+    }
+
+    static int valueOfMate(final int distanceToMate){
+        return distanceToMate + 1;
+    }
+
+    // Package-private access for the generator.
+    int getPieceCount(){
+        return this.pieces.length;
+    }
+    int getPiece(final int slot){
+        return this.pieces[slot];
+    }
+    int value(final int index){
+        return this.values.get(index) & 0xFF;
+    }
+    void setValue(final int index, final int value){
+        this.values.put(index, (byte) value);
+    }
+
+    int index(final SearchBoard board){
+        int index = board.getSideToMove().ordinal();
+        int previousSquare = -1;
+        for(int slot = 0; slot < this.pieces.length; slot++){
+            long squares = board.getPieceBitboard(this.pieces[slot]);
+            if(slot > 0 && this.pieces[slot] == this.pieces[slot - 1]){
+                // Like pieces are indexed in square order, the second one is the next on the board.
+                squares &= -(2L << previousSquare);
+            }
+            previousSquare = BitBoardUtils.firstSquare(squares);
+            index = (index << SQUARE_BITS) | previousSquare;
+        }
+        return index;
+    }
+
+    // Write the squares of the position at the index into squares and return the side to move.
+    Color decode(final int index, final int[] squares){
+        int rest = index;
+        for(int slot = this.pieces.length - 1; slot >= 0; slot--){
+            squares[slot] = rest & (BoardUtils.NUM_SQUARES - 1);
+            rest >>>= SQUARE_BITS;
+        }
+        return rest == 0 ? Color.WHITE : Color.BLACK;
+    }
+
+    // Counts of every piece, four bits each by piece index, which identify a set of pieces.
+    public static long materialKey(final SearchBoard board){
+        long key = 0;
+        for(int piece = 0; piece < BitBoardUtils.NUM_PIECE_BITBOARDS; piece++){
+            key += (long) BitBoardUtils.bitCount(board.getPieceBitboard(piece)) << (MATERIAL_BITS * piece);
+        }
+        return key;
+    }
+
+    static long materialKey(final int[] pieces){
+        long key = 0;
+        for(final int piece: pieces){
+            key += 1L << (MATERIAL_BITS * piece);
+        }
+        return key;
+    }
+
+    // The pieces of a signature such as "KRvK" or "KQvKR": White's before the "v", Black's after it,
+    // each side with exactly one King. In the order the index uses, which is the order signatureOf writes them in.
+    static int[] parseSignature(final String signature){
+        final int separator = signature.indexOf('v');
+        if(separator < 0 || signature.length() - 1 > MAX_PIECES){
+            throw new IllegalArgumentException("Invalid tablebase signature " + signature + ", expected e.g. KQvK");
+        }
+        final int[] counts = new int[BitBoardUtils.NUM_PIECE_BITBOARDS];
+        for(int i = 0; i < signature.length(); i++){
+            if(i == separator){
+                continue;
+            }
+            final PieceType pieceType = pieceTypeOf(signature.charAt(i));
+            if(pieceType == null){
+                throw new IllegalArgumentException("Invalid tablebase signature " + signature + ", expected e.g. KQvK");
+            }
+            counts[BitBoardUtils.pieceIndex(i < separator ? Color.WHITE : Color.BLACK, pieceType)]++;
+        }
+        final int[] pieces = new int[signature.length() - 1];
+        int count = 0;
+        for(final Color color: Color.values()){
+            if(counts[BitBoardUtils.pieceIndex(color, PieceType.KING)] != 1){
+                throw new IllegalArgumentException("Each side needs exactly one King in " + signature);
+            }
+            pieces[count++] = BitBoardUtils.pieceIndex(color, PieceType.KING);
+            for(final PieceType pieceType: SIGNATURE_ORDER){
+                final int piece = BitBoardUtils.pieceIndex(color, pieceType);
+                for(int i = 0; i < counts[piece]; i++){
+                    pieces[count++] = piece;
+                }
+            }
+        }
+        return pieces;
+    }
+
+    static String signatureOf(final int[] pieces){
+        final StringBuilder signature = new StringBuilder();
+        for(int slot = 0; slot < pieces.length; slot++){
+            if(slot > 0 && pieces[slot] / BitBoardUtils.NUM_PIECE_TYPES != pieces[slot - 1] / BitBoardUtils.NUM_PIECE_TYPES){
+                signature.append('v');
+            }
+            signature.append(PieceType.values()[pieces[slot] % BitBoardUtils.NUM_PIECE_TYPES].toString());
+        }
+        return signature.toString();
+    }
+
+    private static PieceType pieceTypeOf(final char letter){
+        for(final PieceType pieceType: PieceType.values()){
+            if(pieceType.toString().charAt(0) == letter){
+                return pieceType;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,345 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.Color;
+import com.chess.engine.board.BitBoardUtils;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Generates tablebases by retrograde analysis, working back from the mates one ply at a time.
+// Pass 0 marks the illegal positions and the checkmates. Every later pass n settles the positions whose distance
+// to mate is n: with n odd, a position wins if one of its moves reaches a position lost in fewer than n plies;
+// with n even, a position loses if every one of its moves reaches a position the opponent wins in fewer than n.
+// Whatever is left when a pass settles nothing is a draw. Moves are generated and played with SearchBoard,
+// the engine's own move generator, instead of a separate generator of moves backwards.
+// Captures and promotions, on their own or in one move, leave the set of pieces, so the tables they lead to are
+// generated first and probed for those moves; a capture down to the bare Kings is a draw. En passant is not indexed,
+// so a double pawn push is valued as if it could not be taken en passant, which only matters with pawns on both sides.
+// Each pass is split over the threads in blocks of positions. A pass only writes values of its own distance and
+// only reads values of shorter ones, so threads never depend on each other's writes within a pass.
+public final class TablebaseGenerator {
+
+    private static final int UNRESOLVED = Tablebase.DRAW;
+    private static final int BLOCK_SIZE = 4096;
+    private static final long BARE_KINGS = Tablebase.materialKey(new int[]{
+            BitBoardUtils.pieceIndex(Color.WHITE, PieceType.KING), BitBoardUtils.pieceIndex(Color.BLACK, PieceType.KING)});
+    private static final PieceType[] PROMOTION_TYPES = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    private final int threads;
+    private final Map<String, Tablebase> tablebases = new LinkedHashMap<>();
+
+    public TablebaseGenerator(final int threads){
+        if(threads < 1){
+            throw new IllegalArgumentException("At least one generator thread is needed, got " + threads);
+        }
+        this.threads = threads;
+    }
+
+    // The table of the signature, e.g. "KRvK", generated together with every table its captures and promotions
+    // lead to. Tables generated before are reused.
+    public Tablebase generate(final String signature){
+        final String canonicalSignature = Tablebase.signatureOf(Tablebase.parseSignature(signature));
+        final Tablebase generated = this.tablebases.get(canonicalSignature);
+        if(generated != null){
+            return generated;
+        }
+        final List<Tablebase> successors = new ArrayList<>();
+        for(final String successor: successorSignatures(Tablebase.parseSignature(canonicalSignature))){
+            successors.add(generate(successor));
+        }
+        final Tablebase tablebase = Tablebase.allocate(canonicalSignature);
+        final ExecutorService pool = Executors.newFixedThreadPool(this.threads, runnable -> {
+            final Thread thread = new Thread(runnable, "tablebase-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try{
+            // A pass that settles nothing ends the generation, unless a longer mate in a successor table
+            // can still settle positions here.
+            int longestSuccessorMate = -1;
+            for(final Tablebase successor: successors){
+                longestSuccessorMate = Math.max(longestSuccessorMate, longestMate(successor));
+            }
+            long settled = runPass(pool, new Pass(tablebase, successors, 0));
+            for(int distance = 1; settled > 0 || distance <= longestSuccessorMate + 1; distance++){
+                if(distance > Tablebase.MAX_DISTANCE_TO_MATE){
+                    throw new IllegalStateException(canonicalSignature + " has mates longer than " +
+                                                    Tablebase.MAX_DISTANCE_TO_MATE + " plies");
+                }
+                settled = runPass(pool, new Pass(tablebase, successors, distance));
+            }
+        } finally{
+            pool.shutdown();
+        }
+        this.tablebases.put(canonicalSignature, tablebase);
+        return tablebase;
+    }
+
+    // Every table generated so far, successors before the tables that need them.
+    public Map<String, Tablebase> getTablebases(){
+        return this.tablebases;
+    }
+
+    // The longest distance to mate in the table, -1 if it has no mates.
+    static int longestMate(final Tablebase tablebase){
+        int longestMate = -1;
+        for(int index = 0; index < tablebase.getPositionCount(); index++){
+            longestMate = Math.max(longestMate, Tablebase.distanceToMate(tablebase.value(index)));
+        }
+        return longestMate;
+    }
+
+    private long runPass(final ExecutorService pool, final Pass pass){
+        final List<Callable<Long>> workers = new ArrayList<>();
+        for(int i = 0; i < this.threads; i++){
+            workers.add(pass::run);
+        }
+        long settled = 0;
+        try{
+            for(final Future<Long> result: pool.invokeAll(workers)){
+                settled += result.get();
+            }
+        } catch(final InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tablebase generation was interrupted", e);
+        } catch(final ExecutionException e){
+            throw new IllegalStateException("Tablebase generation failed", e.getCause());
+        }
+        return settled;
+    }
+
+    // The signatures one capture, promotion or promotion with a capture away, leaving out the bare Kings.
+    private static List<String> successorSignatures(final int[] pieces){
+        final List<String> successors = new ArrayList<>();
+        for(int slot = 0; slot < pieces.length; slot++){
+            final PieceType pieceType = PieceType.values()[pieces[slot] % BitBoardUtils.NUM_PIECE_TYPES];
+            if(pieceType == PieceType.KING){
+                continue;
+            }
+            final int[] captured = withoutSlot(pieces, slot);
+            if(captured.length > 2){
+                addSuccessor(successors, captured);
+            }
+            if(pieceType == PieceType.PAWN){
+                final Color color = pieces[slot] < BitBoardUtils.NUM_PIECE_TYPES ? Color.WHITE : Color.BLACK;
+                for(final PieceType promotionType: PROMOTION_TYPES){
+                    final int[] promoted = pieces.clone();
+                    promoted[slot] = BitBoardUtils.pieceIndex(color, promotionType);
+                    addSuccessor(successors, promoted);
+                    // The pawn may also promote by taking any of the opponent's pieces but the King.
+                    for(int capturedSlot = 0; capturedSlot < pieces.length; capturedSlot++){
+                        final int capturedPiece = pieces[capturedSlot];
+                        final boolean capturedWhite = capturedPiece < BitBoardUtils.NUM_PIECE_TYPES;
+                        if(capturedWhite != color.isWhite() &&
+                           capturedPiece % BitBoardUtils.NUM_PIECE_TYPES != PieceType.KING.ordinal()){
+                            addSuccessor(successors, withoutSlot(promoted, capturedSlot));
+                        }
+                    }
+                }
+            }
+        }
+        return successors;
+    }
+
+    private static int[] withoutSlot(final int[] pieces, final int slot){
+        final int[] remaining = new int[pieces.length - 1];
+        for(int i = 0, j = 0; i < pieces.length; i++){
+            if(i != slot){
+                remaining[j++] = pieces[i];
+            }
+        }
+        return remaining;
+    }
+
+    private static void addSuccessor(final List<String> successors, final int[] pieces){
+        // Through signatureOf and back puts the pieces in signature order again.
+        final String signature = Tablebase.signatureOf(Tablebase.parseSignature(signatureOfUnordered(pieces)));
+        if(!successors.contains(signature)){
+            successors.add(signature);
+        }
+    }
+
+    private static String signatureOfUnordered(final int[] pieces){
+        final StringBuilder white = new StringBuilder();
+        final StringBuilder black = new StringBuilder();
+        for(final int piece: pieces){
+            final String letter = PieceType.values()[piece % BitBoardUtils.NUM_PIECE_TYPES].toString();
+            (piece < BitBoardUtils.NUM_PIECE_TYPES ? white : black).append(letter);
+        }
+        return white + "v" + black;
+    }
+
+    // One pass over a table, shared by the threads, each of which claims the next block of positions until none are left.
+    private static final class Pass {
+
+        private final Tablebase tablebase;
+        private final Tablebase[] successors;
+        private final int distance;
+        private final AtomicInteger nextBlock = new AtomicInteger();
+
+        Pass(final Tablebase tablebase, final List<Tablebase> successors, final int distance){
+            this.tablebase = tablebase;
+            this.successors = successors.toArray(new Tablebase[0]);
+            this.distance = distance;
+        }
+
+        long run(){
+            final SearchBoard board = new SearchBoard();
+            final int[] moves = new int[SearchBoard.MAX_MOVES];
+            final int pieceCount = this.tablebase.getPieceCount();
+            final int[] pieces = new int[pieceCount];
+            for(int slot = 0; slot < pieceCount; slot++){
+                pieces[slot] = this.tablebase.getPiece(slot);
+            }
+            final int[] squares = new int[pieceCount];
+            final int positionCount = this.tablebase.getPositionCount();
+            long settled = 0;
+            for(int start = this.nextBlock.getAndIncrement() * BLOCK_SIZE; start < positionCount;
+                start = this.nextBlock.getAndIncrement() * BLOCK_SIZE){
+                for(int index = start; index < start + BLOCK_SIZE; index++){
+                    if(this.tablebase.value(index) != UNRESOLVED){
+                        continue;
+                    }
+                    final Color sideToMove = this.tablebase.decode(index, squares);
+                    if(this.distance == 0 && !isPlacementLegal(pieces, squares)){
+                        this.tablebase.setValue(index, Tablebase.ILLEGAL);
+                        continue;
+                    }
+                    board.setPosition(pieces, squares, pieceCount, sideToMove);
+                    final int value = settle(board, moves);
+                    if(value != UNRESOLVED){
+                        this.tablebase.setValue(index, value);
+                        settled++;
+                    }
+                }
+            }
+            return settled;
+        }
+
+        // The value this pass gives the position on the board, or UNRESOLVED if it is not settled at this distance.
+        private int settle(final SearchBoard board, final int[] moves){
+            if(this.distance == 0){
+                final Color opponent = board.getSideToMove().isWhite() ? Color.BLACK : Color.WHITE;
+                final int opponentKing = BitBoardUtils.firstSquare(board.getPieceBitboard(opponent, PieceType.KING));
+                if(board.isSquareAttacked(opponentKing, board.getSideToMove())){
+                    return Tablebase.ILLEGAL;
+                }
+                return board.generateLegalMoves(moves) == 0 && board.isInCheck() ? Tablebase.valueOfMate(0) : UNRESOLVED;
+            }
+            final int moveCount = board.generateLegalMoves(moves);
+            if(moveCount == 0){
+                return UNRESOLVED;
+            }
+            final boolean findWin = this.distance % 2 == 1;
+            for(int i = 0; i < moveCount; i++){
+                board.makeMove(moves[i]);
+                final int successorValue = successorValue(board, moves[i]);
+                board.unmakeMove();
+                // Successor tables are complete, so their longer mates must wait for the pass of their distance.
+                final boolean settledBefore = Tablebase.distanceToMate(successorValue) < this.distance;
+                if(findWin && Tablebase.isLoss(successorValue) && settledBefore){
+                    return Tablebase.valueOfMate(this.distance);
+                }
+                if(!findWin && !(Tablebase.isWin(successorValue) && settledBefore)){
+                    return UNRESOLVED;
+                }
+            }
+            return findWin ? UNRESOLVED : Tablebase.valueOfMate(this.distance);
+        }
+
+        private int successorValue(final SearchBoard board, final int move){
+            if(!PackedMove.isCapture(move) && !PackedMove.isPromotion(move)){
+                return this.tablebase.value(this.tablebase.index(board));
+            }
+            final long materialKey = Tablebase.materialKey(board);
+            for(final Tablebase successor: this.successors){
+                if(successor.getMaterialKey() == materialKey){
+                    return successor.value(successor.index(board));
+                }
+            }
+            // Only the Kings may be left, anything else is a table missing from the successors.
+            if(materialKey != BARE_KINGS){
+                throw new IllegalStateException("No tablebase for the position after " + PackedMove.toNotation(move) +
+                                                " in " + this.tablebase.getSignature());
+            }
+            return Tablebase.DRAW;
+        }
+
+        private static boolean isPlacementLegal(final int[] pieces, final int[] squares){
+            long occupied = 0;
+            for(int slot = 0; slot < pieces.length; slot++){
+                final long square = BitBoardUtils.squareMask(squares[slot]);
+                if((occupied & square) != 0){
+                    return false;
+                }
+                occupied |= square;
+                if(pieces[slot] % BitBoardUtils.NUM_PIECE_TYPES == PieceType.PAWN.ordinal() &&
+                   (square & (BitBoardUtils.FIRST_RANK | BitBoardUtils.EIGHTH_RANK)) != 0){
+                    return false;
+                }
+                if(slot > 0 && pieces[slot] == pieces[slot - 1] && squares[slot] < squares[slot - 1]){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Usage: TablebaseGenerator <signature> [threads] [directory]
+    // Generates the table and every table it depends on, writes each to <directory>/<signature>.tbl
+    // and prints what they hold.
+    public static void main(final String[] args) throws IOException{
+        if(args.length < 1){
+            System.out.println("Usage: TablebaseGenerator <signature> [threads] [directory]");
+            return;
+        }
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final Path directory = Paths.get(args.length > 2 ? args[2] : ".");
+        final TablebaseGenerator generator = new TablebaseGenerator(threads);
+
+        final long startTime = System.nanoTime();
+        generator.generate(args[0]);
+        final long elapsedNanos = System.nanoTime() - startTime;
+
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %12s%n", "Table", "Positions", "Wins", "Losses", "Draws",
+                          "Illegal", "Longest mate");
+        for(final Tablebase tablebase: generator.getTablebases().values()){
+            long wins = 0;
+            long losses = 0;
+            long draws = 0;
+            long illegal = 0;
+            int longestMate = 0;
+            for(int index = 0; index < tablebase.getPositionCount(); index++){
+                final int value = tablebase.value(index);
+                if(Tablebase.isWin(value)){
+                    wins++;
+                } else if(Tablebase.isLoss(value)){
+                    losses++;
+                } else if(value == Tablebase.ILLEGAL){
+                    illegal++;
+                } else{
+                    draws++;
+                }
+                longestMate = Math.max(longestMate, Tablebase.distanceToMate(value));
+            }
+            System.out.printf("%-8s %10d %10d %10d %10d %10d %12d%n", tablebase.getSignature(), tablebase.getPositionCount(),
+                              wins, losses, draws, illegal, longestMate);
+            tablebase.write(directory.resolve(tablebase.getSignature() + ".tbl"));
+        }
+        System.out.printf("Generated in %d ms with %d thread(s)%n", elapsedNanos / 1_000_000, threads);
+    }
+}
@@ -2,6 +2,7 @@ package com.chess.gui;
 
 import com.chess.engine.board.Board;
 import com.chess.engine.board.BoardUtils;
+import com.chess.pgn.PgnReader;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
@@ -14,6 +15,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class Table {
 
@@ -54,7 +56,10 @@ public class Table {
         openPGN.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                System.out.println("Open up the specified pgn file");
+                final JFileChooser chooser = new JFileChooser();
+                if(chooser.showOpenDialog(gameFrame) == JFileChooser.APPROVE_OPTION){
+                    loadPGNFile(chooser.getSelectedFile());
+                }
             }
         });
         fileMenu.add(openPGN);
@@ -70,6 +75,33 @@ public class Table {
         return fileMenu;
     }
 
+    // Read the games off the event dispatch thread, archives can be gigabytes, and report on them when done.
+    private void loadPGNFile(final File pgnFile){
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws IOException {
+                final long[] incompleteGames = new long[1];
+                final long games = PgnReader.read(pgnFile.toPath(), game -> {
+                    if(!game.isComplete()){
+                        incompleteGames[0]++;
+                    }
+                });
+                return "Read " + games + " games from " + pgnFile.getName() +
+                       (incompleteGames[0] > 0 ? ", " + incompleteGames[0] + " of them could not be replayed to the end" : "");
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    JOptionPane.showMessageDialog(gameFrame, get());
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(gameFrame, "Could not read " + pgnFile.getName() + ": " + e.getCause(),
+                                                  "Load PGN file", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
     private class BoardPanel extends JPanel{
         final List<TilePanel> boardTiles;
 
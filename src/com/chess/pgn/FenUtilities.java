@@ -0,0 +1,271 @@
+package com.chess.pgn;
+
+import com.chess.engine.Color;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.pieces.Bishop;
+import com.chess.engine.pieces.King;
+import com.chess.engine.pieces.Knight;
+import com.chess.engine.pieces.Pawn;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Queen;
+import com.chess.engine.pieces.Rook;
+
+// Reads and writes positions in Forsyth-Edwards Notation, e.g. the reference positions of the perft suite.
+// Both directions are meant for bulk use, loading or dumping millions of positions: the reader walks the
+// characters once by index instead of splitting or matching, and the writer appends to a caller's StringBuilder
+// that can be cleared and reused between positions.
+// Only the piece placement is required when reading. It must have one King of each color and no pawn on the
+// first or eighth rank. Missing fields default to "w - - 0 1".
+public class FenUtilities {
+
+    public static final String STANDARD_START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final int NO_SQUARE = -1;
+
+    private FenUtilities(){
+        throw new RuntimeException("Not Instantiable!");
+    }
+
+    public static Board createGameFromFEN(final CharSequence fen){
+        return readFEN(fen, new Board.Builder()).build();
+    }
+
+    public static String createFENFromGame(final Board board){
+        return writeFEN(board, new StringBuilder(90)).toString();
+    }
+
+    // Set the pieces, side to move, castling rights, en passant pawn and move clocks of the FEN on the builder.
+    public static Board.Builder readFEN(final CharSequence fen, final Board.Builder builder){
+        final int placementStart = skipSpaces(fen, 0);
+        final int placementEnd = fieldEnd(fen, placementStart);
+        final int sideStart = skipSpaces(fen, placementEnd);
+        final int sideEnd = fieldEnd(fen, sideStart);
+        final int castlingStart = skipSpaces(fen, sideEnd);
+        final int castlingEnd = fieldEnd(fen, castlingStart);
+        final int enPassantStart = skipSpaces(fen, castlingEnd);
+        final int enPassantEnd = fieldEnd(fen, enPassantStart);
+        final int halfmoveStart = skipSpaces(fen, enPassantEnd);
+        final int halfmoveEnd = fieldEnd(fen, halfmoveStart);
+        final int fullmoveStart = skipSpaces(fen, halfmoveEnd);
+        final int fullmoveEnd = fieldEnd(fen, fullmoveStart);
+        if(placementStart == placementEnd){
+            throw new IllegalArgumentException("FEN without a piece placement: " + fen);
+        }
+        if(skipSpaces(fen, fullmoveEnd) != fen.length()){
+            throw new IllegalArgumentException("FEN with more than six fields: " + fen);
+        }
+
+        final Color moveMaker = parseMoveMaker(fen, sideStart, sideEnd);
+        final int castlingRights = parseCastlingRights(fen, castlingStart, castlingEnd);
+        // The en passant field names the square behind the pawn that just jumped, so the pawn stands one row
+        // further in the direction the side to move plays.
+        final int enPassantSquare = parseSquare(fen, enPassantStart, enPassantEnd);
+        final int enPassantPawnSquare = enPassantSquare == NO_SQUARE ? NO_SQUARE :
+                                        enPassantSquare - (moveMaker.getDirection() * BoardUtils.NUM_SQUARES_PER_ROW);
+
+        // The piece placement runs from a8 to h1, which is exactly our coordinate order.
+        int row = 0;
+        int file = 0;
+        int whiteKings = 0;
+        int blackKings = 0;
+        for(int i = placementStart; i < placementEnd; i++){
+            final char fenCharacter = fen.charAt(i);
+            if(fenCharacter == '/'){
+                if(file != BoardUtils.NUM_SQUARES_PER_ROW || ++row == BoardUtils.NUM_SQUARES_PER_ROW){
+                    throw new IllegalArgumentException("Invalid FEN piece placement: " + fen);
+                }
+                file = 0;
+                continue;
+            }
+            if(fenCharacter >= '1' && fenCharacter <= '8'){
+                file += fenCharacter - '0';
+            } else{
+                if(file == BoardUtils.NUM_SQUARES_PER_ROW){
+                    throw new IllegalArgumentException("Invalid FEN piece placement: " + fen);
+                }
+                final int coordinate = row * BoardUtils.NUM_SQUARES_PER_ROW + file;
+                // A pawn there would have promoted, and the move generators would step it off the board.
+                if((fenCharacter == 'P' || fenCharacter == 'p') &&
+                   (row == 0 || row == BoardUtils.NUM_SQUARES_PER_ROW - 1)){
+                    throw new IllegalArgumentException("FEN with a pawn on the first or eighth rank: " + fen);
+                }
+                final Piece piece = createPiece(fenCharacter, coordinate, castlingRights);
+                builder.setPiece(piece);
+                if(fenCharacter == 'K'){
+                    whiteKings++;
+                } else if(fenCharacter == 'k'){
+                    blackKings++;
+                }
+                if(coordinate == enPassantPawnSquare && piece.getPieceType() == Piece.PieceType.PAWN &&
+                   piece.getPieceColor() != moveMaker){
+                    builder.setEnPassantPawn((Pawn) piece);
+                }
+                file++;
+            }
+            if(file > BoardUtils.NUM_SQUARES_PER_ROW){
+                throw new IllegalArgumentException("Invalid FEN piece placement: " + fen);
+            }
+        }
+        if(row != BoardUtils.NUM_SQUARES_PER_ROW - 1 || file != BoardUtils.NUM_SQUARES_PER_ROW){
+            throw new IllegalArgumentException("Invalid FEN piece placement: " + fen);
+        }
+        // Board cannot be built without both Kings, so this is as far as a bad FEN may get.
+        if(whiteKings != 1 || blackKings != 1){
+            throw new IllegalArgumentException("FEN without exactly one King per side: " + fen);
+        }
+
+        builder.setMoveMaker(moveMaker);
+        builder.setHalfmoveClock(parseNumber(fen, halfmoveStart, halfmoveEnd, 0));
+        builder.setFullmoveNumber(parseNumber(fen, fullmoveStart, fullmoveEnd, 1));
+        return builder;
+    }
+
+    // Append the FEN of the board to the builder and return it.
+    public static StringBuilder writeFEN(final Board board, final StringBuilder out){
+        for(int row = 0; row < BoardUtils.NUM_SQUARES_PER_ROW; row++){
+            if(row > 0){
+                out.append('/');
+            }
+            int emptySquares = 0;
+            for(int file = 0; file < BoardUtils.NUM_SQUARES_PER_ROW; file++){
+                final Piece piece = board.getSquare(row * BoardUtils.NUM_SQUARES_PER_ROW + file).getPiece();
+                if(piece == null){
+                    emptySquares++;
+                    continue;
+                }
+                if(emptySquares > 0){
+                    out.append((char) ('0' + emptySquares));
+                    emptySquares = 0;
+                }
+                final char pieceCharacter = piece.getPieceType().toString().charAt(0);
+                out.append(piece.getPieceColor().isWhite() ? pieceCharacter : Character.toLowerCase(pieceCharacter));
+            }
+            if(emptySquares > 0){
+                out.append((char) ('0' + emptySquares));
+            }
+        }
+
+        out.append(' ').append(board.currentPlayer().getColor().isWhite() ? 'w' : 'b').append(' ');
+
+        final int castlingRights = board.getCastlingRights();
+        if(castlingRights == 0){
+            out.append('-');
+        } else{
+            if((castlingRights & BoardUtils.WHITE_KING_SIDE) != 0) out.append('K');
+            if((castlingRights & BoardUtils.WHITE_QUEEN_SIDE) != 0) out.append('Q');
+            if((castlingRights & BoardUtils.BLACK_KING_SIDE) != 0) out.append('k');
+            if((castlingRights & BoardUtils.BLACK_QUEEN_SIDE) != 0) out.append('q');
+        }
+        out.append(' ');
+
+        final int enPassantSquare = board.getEnPassantSquare();
+        if(enPassantSquare == NO_SQUARE){
+            out.append('-');
+        } else{
+            out.append(BoardUtils.getPositionAtCoordinate(enPassantSquare));
+        }
+
+        return out.append(' ').append(board.getHalfmoveClock()).append(' ').append(board.getFullmoveNumber());
+    }
+
+    private static int skipSpaces(final CharSequence fen, int index){
+        while(index < fen.length() && fen.charAt(index) == ' '){
+            index++;
+        }
+        return index;
+    }
+
+    private static int fieldEnd(final CharSequence fen, int index){
+        while(index < fen.length() && fen.charAt(index) != ' '){
+            index++;
+        }
+        return index;
+    }
+
+    private static Color parseMoveMaker(final CharSequence fen, final int start, final int end){
+        if(start == end){
+            return Color.WHITE;
+        }
+        if(end - start == 1 && fen.charAt(start) == 'w'){
+            return Color.WHITE;
+        }
+        if(end - start == 1 && fen.charAt(start) == 'b'){
+            return Color.BLACK;
+        }
+        throw new IllegalArgumentException("Invalid FEN side to move: " + fen);
+    }
+
+    private static int parseCastlingRights(final CharSequence fen, final int start, final int end){
+        int castlingRights = 0;
+        if(start == end || (end - start == 1 && fen.charAt(start) == '-')){
+            return castlingRights;
+        }
+        for(int i = start; i < end; i++){
+            switch(fen.charAt(i)){
+                case 'K': castlingRights |= BoardUtils.WHITE_KING_SIDE; break;
+                case 'Q': castlingRights |= BoardUtils.WHITE_QUEEN_SIDE; break;
+                case 'k': castlingRights |= BoardUtils.BLACK_KING_SIDE; break;
+                case 'q': castlingRights |= BoardUtils.BLACK_QUEEN_SIDE; break;
+                default: throw new IllegalArgumentException("Invalid FEN castling rights: " + fen);
+            }
+        }
+        return castlingRights;
+    }
+
+    // The coordinate of an algebraic square, or NO_SQUARE for "-" or a missing field.
+    private static int parseSquare(final CharSequence fen, final int start, final int end){
+        if(start == end || (end - start == 1 && fen.charAt(start) == '-')){
+            return NO_SQUARE;
+        }
+        final char file = fen.charAt(start);
+        final char rank = end - start == 2 ? fen.charAt(start + 1) : 0;
+        if(file < 'a' || file > 'h' || rank < '1' || rank > '8'){
+            throw new IllegalArgumentException("Invalid FEN en passant square: " + fen);
+        }
+        return (BoardUtils.NUM_SQUARES_PER_ROW - (rank - '0')) * BoardUtils.NUM_SQUARES_PER_ROW + (file - 'a');
+    }
+
+    private static int parseNumber(final CharSequence fen, final int start, final int end, final int missing){
+        if(start == end){
+            return missing;
+        }
+        if(end - start > 9){
+            throw new IllegalArgumentException("FEN move number out of range: " + fen);
+        }
+        int number = 0;
+        for(int i = start; i < end; i++){
+            final char digit = fen.charAt(i);
+            if(digit < '0' || digit > '9'){
+                throw new IllegalArgumentException("Invalid FEN move number: " + fen);
+            }
+            number = number * 10 + (digit - '0');
+        }
+        return number;
+    }
+
+    // Kings and Rooks count as unmoved only when the castling rights still allow them to castle.
+    private static Piece createPiece(final char fenCharacter, final int coordinate, final int castlingRights){
+        switch(fenCharacter){
+            case 'K': return new King(Color.WHITE, coordinate, coordinate == BoardUtils.WHITE_KING_SQUARE &&
+                                      (castlingRights & (BoardUtils.WHITE_KING_SIDE | BoardUtils.WHITE_QUEEN_SIDE)) != 0);
+            case 'k': return new King(Color.BLACK, coordinate, coordinate == BoardUtils.BLACK_KING_SQUARE &&
+                                      (castlingRights & (BoardUtils.BLACK_KING_SIDE | BoardUtils.BLACK_QUEEN_SIDE)) != 0);
+            case 'R': return new Rook(Color.WHITE, coordinate,
+                                      (coordinate == BoardUtils.WHITE_KING_ROOK_SQUARE && (castlingRights & BoardUtils.WHITE_KING_SIDE) != 0) ||
+                                      (coordinate == BoardUtils.WHITE_QUEEN_ROOK_SQUARE && (castlingRights & BoardUtils.WHITE_QUEEN_SIDE) != 0));
+            case 'r': return new Rook(Color.BLACK, coordinate,
+                                      (coordinate == BoardUtils.BLACK_KING_ROOK_SQUARE && (castlingRights & BoardUtils.BLACK_KING_SIDE) != 0) ||
+                                      (coordinate == BoardUtils.BLACK_QUEEN_ROOK_SQUARE && (castlingRights & BoardUtils.BLACK_QUEEN_SIDE) != 0));
+            case 'Q': return new Queen(Color.WHITE, coordinate, false);
+            case 'q': return new Queen(Color.BLACK, coordinate, false);
+            case 'B': return new Bishop(Color.WHITE, coordinate, false);
+            case 'b': return new Bishop(Color.BLACK, coordinate, false);
+            case 'N': return new Knight(Color.WHITE, coordinate, false);
+            case 'n': return new Knight(Color.BLACK, coordinate, false);
+            case 'P': return new Pawn(Color.WHITE, coordinate, false);
+            case 'p': return new Pawn(Color.BLACK, coordinate, false);
+            default: throw new IllegalArgumentException("Invalid FEN piece " + fenCharacter);
+        }
+    }
+}
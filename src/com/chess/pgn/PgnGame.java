@@ -0,0 +1,78 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// One game read by the PgnReader: its tag pairs, the moves of its main line replayed from the starting position,
+// and the result. Variations, comments and annotation glyphs are skipped while reading.
+// A game that could not be replayed to the end keeps the moves up to the first one that failed,
+// and getError() says which move that was.
+public final class PgnGame {
+
+    private final Map<String, String> tags;
+    private final Board startBoard;
+    private final Board finalBoard;
+    private final List<Move> moves;
+    private final String result;
+    private final String error;
+
+    PgnGame(final Map<String, String> tags,
+            final Board startBoard,
+            final Board finalBoard,
+            final List<Move> moves,
+            final String result,
+            final String error){
+        this.tags = Collections.unmodifiableMap(tags);
+        this.startBoard = startBoard;
+        this.finalBoard = finalBoard;
+        this.moves = Collections.unmodifiableList(moves);
+        this.result = result;
+        this.error = error;
+    }
+
+    public Map<String, String> getTags(){
+        return this.tags;
+    }
+
+    // The value of a tag pair, e.g. "White" or "Event", or null if the game does not have it.
+    public String getTag(final String name){
+        return this.tags.get(name);
+    }
+
+    // The standard starting position, or the position of the FEN tag. Null if that tag could not be read.
+    public Board getStartBoard(){
+        return this.startBoard;
+    }
+
+    // The position after the last move that was replayed.
+    public Board getFinalBoard(){
+        return this.finalBoard;
+    }
+
+    public List<Move> getMoves(){
+        return this.moves;
+    }
+
+    // "1-0", "0-1", "1/2-1/2", or "*" for an unfinished game or one without a result.
+    public String getResult(){
+        return this.result;
+    }
+
+    public boolean isComplete(){
+        return this.error == null;
+    }
+
+    public String getError(){
+        return this.error;
+    }
+
+    @Override
+    public String toString(){
+        return this.tags.getOrDefault("White", "?") + " - " + this.tags.getOrDefault("Black", "?") + " " + this.result +
+               " (" + this.moves.size() + " plies)";
+    }
+}
@@ -0,0 +1,368 @@
+package com.chess.pgn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Reads PGN files on a pool of worker threads. Replaying the moves through Move.execute is what costs the time,
+// not reading the bytes, so every file is cut into chunks of a few megabytes at game boundaries and each chunk
+// is replayed by a PgnReader of its own, all of them sharing the file's channel through positional reads.
+// Workers hand their games on in batches through a bounded queue. When the sinks fall behind the queue fills up
+// and the workers block, so no more than (queue capacity + threads) batches are ever held in memory.
+// The sinks are called from the thread that runs ingest(), one batch at a time, so they need not be thread safe.
+// Batches arrive in no particular order: games of one chunk stay in order, chunks do not.
+public final class PgnPipeline {
+
+    // Receives every batch of games, then finish() once the last one has been delivered.
+    public interface Sink {
+        void accept(List<PgnGame> games);
+
+        default void finish(){
+        }
+    }
+
+    // The bytes of a file one worker replays, from the start of a game up to the start of another or the end.
+    private static final class Chunk {
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+
+        Chunk(final FileChannel channel, final long start, final long end){
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+    // Handed on by the last worker to finish, after every batch.
+    private static final List<PgnGame> END_OF_GAMES = Collections.emptyList();
+
+    private final int threads;
+    private final long chunkBytes;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final List<Sink> sinks;
+
+    private PgnPipeline(final Builder builder){
+        this.threads = builder.threads;
+        this.chunkBytes = (long) builder.chunkMegabytes << 20;
+        this.batchSize = builder.batchSize;
+        this.queueCapacity = builder.queueCapacity > 0 ? builder.queueCapacity : 2 * builder.threads;
+        this.sinks = Collections.unmodifiableList(new ArrayList<>(builder.sinks));
+    }
+
+    // Replay every game in the files, deliver them to the sinks and return the totals.
+    // An exception in any worker stops the others and is rethrown here, inside an IllegalStateException if it is
+    // checked and not an IOException.
+    public Statistics ingest(final List<Path> files) throws IOException, InterruptedException{
+        final long startTime = System.nanoTime();
+        final List<FileChannel> channels = new ArrayList<>();
+        final ExecutorService workers = Executors.newFixedThreadPool(this.threads, runnable -> {
+            final Thread thread = new Thread(runnable, "pgn-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try{
+            final List<Chunk> chunks = new ArrayList<>();
+            for(final Path file: files){
+                final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                channels.add(channel);
+                addChunks(channel, chunks);
+            }
+            if(chunks.isEmpty()){
+                finishSinks();
+                return new Statistics(0, 0, 0, System.nanoTime() - startTime);
+            }
+
+            final BlockingQueue<List<PgnGame>> queue = new ArrayBlockingQueue<>(this.queueCapacity);
+            final AtomicInteger chunksLeft = new AtomicInteger(chunks.size());
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE));
+            for(final Chunk chunk: chunks){
+                workers.execute(() -> {
+                    try{
+                        if(failure.get() == null){
+                            replay(chunk, buffers.get(), queue);
+                        }
+                    } catch(final InterruptedException e){
+                        failure.compareAndSet(null, e);
+                        Thread.currentThread().interrupt();
+                    } catch(final Throwable e){
+                        failure.compareAndSet(null, e);
+                    } finally{
+                        // Whatever happened to the chunk, the last one to finish must end the queue or ingest
+                        // waits forever.
+                        if(chunksLeft.decrementAndGet() == 0){
+                            try{
+                                queue.put(END_OF_GAMES);
+                            } catch(final InterruptedException e){
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    }
+                });
+            }
+
+            long games = 0;
+            long incompleteGames = 0;
+            long positions = 0;
+            for(List<PgnGame> batch = queue.take(); batch != END_OF_GAMES; batch = queue.take()){
+                for(final PgnGame game: batch){
+                    positions += game.getMoves().size();
+                    if(!game.isComplete()){
+                        incompleteGames++;
+                    }
+                }
+                games += batch.size();
+                for(final Sink sink: this.sinks){
+                    sink.accept(batch);
+                }
+            }
+            final Throwable workerFailure = failure.get();
+            if(workerFailure instanceof IOException){
+                throw (IOException) workerFailure;
+            }
+            if(workerFailure instanceof RuntimeException){
+                throw (RuntimeException) workerFailure;
+            }
+            if(workerFailure instanceof Error){
+                throw (Error) workerFailure;
+            }
+            if(workerFailure != null){
+                throw new IllegalStateException("PGN ingestion failed", workerFailure);
+            }
+            finishSinks();
+            return new Statistics(games, incompleteGames, positions, System.nanoTime() - startTime);
+        } finally{
+            // Interrupts workers still blocked on a full queue when a sink has thrown.
+            workers.shutdownNow();
+            for(final FileChannel channel: channels){
+                channel.close();
+            }
+        }
+    }
+
+    public int getThreads(){
+        return this.threads;
+    }
+
+    private void finishSinks(){
+        for(final Sink sink: this.sinks){
+            sink.finish();
+        }
+    }
+
+    private void replay(final Chunk chunk,
+                        final ByteBuffer buffer,
+                        final BlockingQueue<List<PgnGame>> queue) throws IOException, InterruptedException{
+        final PgnReader reader = new PgnReader(chunk.channel, chunk.start, chunk.end, buffer);
+        List<PgnGame> batch = new ArrayList<>(this.batchSize);
+        for(PgnGame game = reader.nextGame(); game != null; game = reader.nextGame()){
+            batch.add(game);
+            if(batch.size() == this.batchSize){
+                queue.put(batch);
+                batch = new ArrayList<>(this.batchSize);
+            }
+        }
+        if(!batch.isEmpty()){
+            queue.put(batch);
+        }
+    }
+
+    // Cut the file into chunks of about chunkBytes, each starting where a game does.
+    private void addChunks(final FileChannel channel, final List<Chunk> chunks) throws IOException{
+        final long size = channel.size();
+        long start = 0;
+        while(start < size){
+            final long end = start + this.chunkBytes >= size ? size : findGameStart(channel, start + this.chunkBytes, size);
+            chunks.add(new Chunk(channel, start, end));
+            start = end;
+        }
+    }
+
+    // The first game at or after the offset, or the size of the file if there is none.
+    // A game starts with a tag pair at the beginning of a line, where the line before ends in anything but the
+    // closing bracket of another tag pair: the result or the last move of the game before.
+    private static long findGameStart(final FileChannel channel, final long offset, final long size) throws IOException{
+        final ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = offset;
+        boolean lineStart = false;
+        // Nothing is known about the line the offset falls into, so the search begins on the next one.
+        boolean seenLineEnd = false;
+        int lastNonSpace = 0;
+        while(position < size){
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if(read <= 0){
+                break;
+            }
+            for(int i = 0; i < read; i++){
+                final byte b = buffer.get(i);
+                if(b == '[' && lineStart && seenLineEnd && lastNonSpace != 0 && lastNonSpace != ']'){
+                    return position + i;
+                }
+                if(b == '\n'){
+                    lineStart = true;
+                    seenLineEnd = true;
+                } else if(b != ' ' && b != '\r' && b != '\t'){
+                    lineStart = false;
+                    if(seenLineEnd){
+                        lastNonSpace = b;
+                    }
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    // What an ingest() run did and how fast.
+    public static final class Statistics {
+
+        private final long games;
+        private final long incompleteGames;
+        private final long positions;
+        private final long elapsedNanos;
+
+        Statistics(final long games, final long incompleteGames, final long positions, final long elapsedNanos){
+            this.games = games;
+            this.incompleteGames = incompleteGames;
+            this.positions = positions;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getGames(){
+            return this.games;
+        }
+
+        // Games with a move that could not be played, which were delivered up to that move.
+        public long getIncompleteGames(){
+            return this.incompleteGames;
+        }
+
+        // Positions reached by replaying the moves, one per move.
+        public long getPositions(){
+            return this.positions;
+        }
+
+        public long getElapsedNanos(){
+            return this.elapsedNanos;
+        }
+
+        public long getGamesPerSecond(){
+            return this.elapsedNanos == 0 ? 0 : this.games * 1_000_000_000L / this.elapsedNanos;
+        }
+
+        public long getPositionsPerSecond(){
+            return this.elapsedNanos == 0 ? 0 : this.positions * 1_000_000_000L / this.elapsedNanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%d games (%d incomplete), %d positions in %d ms: %d games/s, %d positions/s",
+                    this.games, this.incompleteGames, this.positions, this.elapsedNanos / 1_000_000,
+                    getGamesPerSecond(), getPositionsPerSecond());
+        }
+    }
+
+    // Usage: PgnPipeline <maxThreads> <file>...
+    // Ingests the files with 1, 2, 4, ... threads up to maxThreads and reports the throughput and speedup of each run.
+    public static void main(final String[] args) throws IOException, InterruptedException{
+        if(args.length < 2){
+            System.out.println("Usage: PgnPipeline <maxThreads> <file>...");
+            return;
+        }
+        final int maxThreads = Integer.parseInt(args[0]);
+        final List<Path> files = new ArrayList<>();
+        for(int i = 1; i < args.length; i++){
+            files.add(Paths.get(args[i]));
+        }
+
+        // Warm up the JIT first, or the single thread run is measured in the interpreter.
+        new Builder().setThreads(maxThreads).build().ingest(files);
+
+        System.out.printf("%7s %10s %10s %12s %10s %14s %8s%n", "Threads", "Time (ms)", "Games", "Positions",
+                          "Games/s", "Positions/s", "Speedup");
+        long singleThreadNanos = 0;
+        for(int threads = 1; threads <= maxThreads; threads *= 2){
+            final Statistics statistics = new Builder().setThreads(threads).build().ingest(files);
+            if(threads == 1){
+                singleThreadNanos = statistics.getElapsedNanos();
+            }
+            System.out.printf("%7d %10d %10d %12d %10d %14d %8.2f%n", threads, statistics.getElapsedNanos() / 1_000_000,
+                    statistics.getGames(), statistics.getPositions(), statistics.getGamesPerSecond(),
+                    statistics.getPositionsPerSecond(), (double) singleThreadNanos / statistics.getElapsedNanos());
+        }
+    }
+
+    // Builder for the pool, chunk and batch settings and the sinks. Without sinks the games are only counted.
+    public static class Builder{
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        int chunkMegabytes = 4;
+        int batchSize = 256;
+        int queueCapacity;
+        final List<Sink> sinks = new ArrayList<>();
+
+        public Builder(){
+        }
+
+        public Builder setThreads(final int threads){
+            if(threads < 1){
+                throw new IllegalArgumentException("At least one worker thread is needed, got " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        // Smaller chunks spread the work more evenly over the workers, larger ones cost fewer boundary searches.
+        public Builder setChunkMegabytes(final int chunkMegabytes){
+            if(chunkMegabytes < 1){
+                throw new IllegalArgumentException("Chunks are at least 1 MB, not " + chunkMegabytes);
+            }
+            this.chunkMegabytes = chunkMegabytes;
+            return this;
+        }
+
+        public Builder setBatchSize(final int batchSize){
+            if(batchSize < 1){
+                throw new IllegalArgumentException("A batch holds at least one game, not " + batchSize);
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        // How many batches may wait for the sinks before the workers block. Defaults to two per thread.
+        public Builder setQueueCapacity(final int queueCapacity){
+            if(queueCapacity < 1){
+                throw new IllegalArgumentException("The queue holds at least one batch, not " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder addSink(final Sink sink){
+            this.sinks.add(sink);
+            return this;
+        }
+
+        public PgnPipeline build(){
+            return new PgnPipeline(this);
+        }
+    }
+}
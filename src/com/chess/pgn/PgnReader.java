@@ -0,0 +1,436 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.MoveFactory;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// A streaming reader for PGN files of any size. The file is read through one direct buffer that is refilled
+// in place, and the movetext is tokenised byte by byte into a reused token array: no String is made for a line
+// or a move, only for the tag pairs a game keeps. Every move is resolved against the board with MoveFactory
+// and executed, so a game comes out as real Moves and Boards.
+// Games are handed to the caller one at a time and nothing is kept once the next one is read, so memory stays
+// flat whatever the size of the file.
+// A reader covers a byte range of a channel, so several readers can share one file, each starting at a game
+// boundary. Tag values are decoded as UTF-8, which covers the ASCII of the PGN standard.
+public final class PgnReader {
+
+    // Called with every game in the order of the file.
+    public interface GameHandler {
+        void handle(PgnGame game);
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    public static final String WHITE_WINS = "1-0";
+    public static final String BLACK_WINS = "0-1";
+    public static final String DRAW = "1/2-1/2";
+    public static final String UNKNOWN_RESULT = "*";
+
+    private static final int END_OF_INPUT = -1;
+    private static final int NOTHING_PUSHED_BACK = -2;
+
+    private final FileChannel channel;
+    private final long end;
+    private final ByteBuffer buffer;
+    // The standard starting position is shared by every game without a FEN tag. Boards are immutable.
+    private final Board standardBoard = Board.createStandardBoard();
+    private long position;
+    private int pushedBack = NOTHING_PUSHED_BACK;
+    private byte[] token = new byte[64];
+    private int tokenLength;
+
+    // Read the bytes from start up to end of the channel, which has to be positioned at the start of a game.
+    public PgnReader(final FileChannel channel, final long start, final long end, final int bufferSize){
+        this(channel, start, end, ByteBuffer.allocateDirect(checkBufferSize(bufferSize)));
+    }
+
+    // Read through a buffer of the caller's, so one direct buffer can serve many readers one after the other.
+    PgnReader(final FileChannel channel, final long start, final long end, final ByteBuffer buffer){
+        if(start < 0 || end < start){
+            throw new IllegalArgumentException("Invalid byte range " + start + " to " + end);
+        }
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+        this.buffer = buffer;
+        this.buffer.clear().flip();
+    }
+
+    // Read every game in the file and return how many there were.
+    public static long read(final Path file, final GameHandler handler) throws IOException{
+        try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            return new PgnReader(channel, 0, channel.size(), DEFAULT_BUFFER_SIZE).readAll(handler);
+        }
+    }
+
+    public long readAll(final GameHandler handler) throws IOException{
+        long games = 0;
+        for(PgnGame game = nextGame(); game != null; game = nextGame()){
+            handler.handle(game);
+            games++;
+        }
+        return games;
+    }
+
+    // The next game, or null at the end of the input.
+    public PgnGame nextGame() throws IOException{
+        int c = skipWhitespace();
+        if(c == END_OF_INPUT){
+            return null;
+        }
+        final Map<String, String> tags = new LinkedHashMap<>();
+        while(c == '['){
+            readTag(tags);
+            c = skipWhitespace();
+        }
+
+        String error = null;
+        Board board = this.standardBoard;
+        final String fen = tags.get("FEN");
+        if(fen != null){
+            try{
+                board = FenUtilities.createGameFromFEN(fen);
+            } catch(final IllegalArgumentException e){
+                board = null;
+                error = e.getMessage();
+            }
+        }
+        final Board startBoard = board;
+        final List<Move> moves = new ArrayList<>();
+        String result = UNKNOWN_RESULT;
+
+        movetext:
+        while(c != END_OF_INPUT){
+            switch(c){
+                case '{':
+                    skipPast('}');
+                    break;
+                case ';':
+                case '%':
+                    skipPast('\n');
+                    break;
+                case '(':
+                    skipVariation();
+                    break;
+                case '[':
+                    // The tags of the next game, when this one ended without a result.
+                    this.pushedBack = c;
+                    break movetext;
+                case '$':
+                    // A numeric annotation glyph.
+                    readToken(c);
+                    break;
+                default:
+                    if(isWhitespace(c) || c == ')' || c == ']'){
+                        break;
+                    }
+                    readToken(c);
+                    final String tokenResult = resultOfToken();
+                    if(tokenResult != null){
+                        result = tokenResult;
+                        break movetext;
+                    }
+                    if(error == null){
+                        final Move move = resolveMove(board);
+                        if(move == Move.NULL_MOVE){
+                            error = "Cannot play " + new String(this.token, 0, this.tokenLength, StandardCharsets.UTF_8) +
+                                    " after " + moves.size() + " plies";
+                        } else if(move != null){
+                            moves.add(move);
+                            board = move.execute();
+                        }
+                    }
+            }
+            c = next();
+        }
+        return new PgnGame(tags, startBoard, board, moves, result, error);
+    }
+
+    // A tag pair such as [White "Carlsen, Magnus"], after the opening bracket.
+    private void readTag(final Map<String, String> tags) throws IOException{
+        int c = skipWhitespace();
+        this.tokenLength = 0;
+        while(c != END_OF_INPUT && c != '"' && c != ']' && !isWhitespace(c)){
+            appendToken(c);
+            c = next();
+        }
+        final String name = new String(this.token, 0, this.tokenLength, StandardCharsets.UTF_8);
+        while(c != END_OF_INPUT && c != '"' && c != ']'){
+            c = next();
+        }
+        this.tokenLength = 0;
+        if(c == '"'){
+            for(c = next(); c != END_OF_INPUT && c != '"' && c != '\n'; c = next()){
+                if(c == '\\'){
+                    c = next();
+                    if(c == END_OF_INPUT){
+                        break;
+                    }
+                }
+                appendToken(c);
+            }
+            if(c == '"'){
+                c = next();
+            }
+        }
+        while(c != END_OF_INPUT && c != ']' && c != '\n'){
+            c = next();
+        }
+        tags.put(name, new String(this.token, 0, this.tokenLength, StandardCharsets.UTF_8));
+    }
+
+    // A token of the movetext: a move, a move number, a result or an annotation glyph.
+    private void readToken(final int first) throws IOException{
+        this.tokenLength = 0;
+        int c = first;
+        do{
+            appendToken(c);
+            c = next();
+        } while(c != END_OF_INPUT && !isWhitespace(c) && c != '{' && c != '(' && c != ')' && c != ';' && c != '[');
+        if(c != END_OF_INPUT){
+            this.pushedBack = c;
+        }
+    }
+
+    private static int checkBufferSize(final int bufferSize){
+        if(bufferSize < 1){
+            throw new IllegalArgumentException("A PGN reader needs a buffer, not " + bufferSize + " bytes");
+        }
+        return bufferSize;
+    }
+
+    private String resultOfToken(){
+        if(tokenEquals(WHITE_WINS)) return WHITE_WINS;
+        if(tokenEquals(BLACK_WINS)) return BLACK_WINS;
+        if(tokenEquals(DRAW)) return DRAW;
+        if(tokenEquals(UNKNOWN_RESULT)) return UNKNOWN_RESULT;
+        return null;
+    }
+
+    // The legal move the token names in Standard Algebraic Notation, Move.NULL_MOVE if there is none or more
+    // than one, or null if the token is only a move number.
+    private Move resolveMove(final Board board){
+        int start = 0;
+        int end = this.tokenLength;
+        // Move numbers, "12." or "12...", may be written against the move that follows them.
+        int digits = 0;
+        while(digits < end && this.token[digits] >= '0' && this.token[digits] <= '9'){
+            digits++;
+        }
+        if(digits == end){
+            return null;
+        }
+        if(this.token[digits] == '.'){
+            start = digits;
+        }
+        while(start < end && this.token[start] == '.'){
+            start++;
+        }
+        // Check, mate and the move assessments "!" and "?".
+        while(end > start && (this.token[end - 1] == '+' || this.token[end - 1] == '#' ||
+                              this.token[end - 1] == '!' || this.token[end - 1] == '?')){
+            end--;
+        }
+        if(start == end){
+            return null;
+        }
+        if(board == null){
+            return Move.NULL_MOVE;
+        }
+
+        final int castleLength = castleLength(start, end);
+        if(castleLength != 0){
+            final int kingPosition = board.currentPlayer().getPlayerKing().getPiecePosition();
+            return MoveFactory.createMove(board, kingPosition, castleLength == 3 ? kingPosition + 2 : kingPosition - 2);
+        }
+
+        PieceType pieceType = PieceType.PAWN;
+        final PieceType letterType = pieceTypeOf(this.token[start]);
+        if(letterType != null){
+            pieceType = letterType;
+            start++;
+        }
+        PieceType promotionType = null;
+        if(end - start >= 2 && this.token[end - 2] == '='){
+            promotionType = pieceTypeOf(this.token[end - 1]);
+            end -= 2;
+        } else if(pieceType == PieceType.PAWN && end > start && pieceTypeOf(this.token[end - 1]) != null){
+            promotionType = pieceTypeOf(this.token[end - 1]);
+            end--;
+        }
+        if(end - start < 2 || !isFile(this.token[end - 2]) || !isRank(this.token[end - 1])){
+            return Move.NULL_MOVE;
+        }
+        final int destination = coordinate(this.token[end - 2], this.token[end - 1]);
+
+        // Whatever comes before the destination disambiguates: a file, a rank, both, and "x" for a capture.
+        int fromFile = -1;
+        int fromRank = -1;
+        for(int i = start; i < end - 2; i++){
+            final byte b = this.token[i];
+            if(isFile(b)){
+                fromFile = b - 'a';
+            } else if(isRank(b)){
+                fromRank = b - '1';
+            } else if(b != 'x' && b != ':' && b != '-'){
+                return Move.NULL_MOVE;
+            }
+        }
+
+        Move found = Move.NULL_MOVE;
+        for(final Piece piece: board.currentPlayer().getActivePieces()){
+            final int piecePosition = piece.getPiecePosition();
+            if(piece.getPieceType() != pieceType ||
+               (fromFile >= 0 && piecePosition % BoardUtils.NUM_SQUARES_PER_ROW != fromFile) ||
+               (fromRank >= 0 && BoardUtils.NUM_SQUARES_PER_ROW - 1 - piecePosition / BoardUtils.NUM_SQUARES_PER_ROW != fromRank)){
+                continue;
+            }
+            final Move move = MoveFactory.createMove(board, piecePosition, destination, promotionType);
+            if(move != Move.NULL_MOVE){
+                if(found != Move.NULL_MOVE){
+                    return Move.NULL_MOVE;
+                }
+                found = move;
+            }
+        }
+        return found;
+    }
+
+    // 3 for O-O, 5 for O-O-O, with letter O or digit zero, and 0 for anything else.
+    private int castleLength(final int start, final int end){
+        final int length = end - start;
+        if(length != 3 && length != 5){
+            return 0;
+        }
+        final byte castle = this.token[start];
+        if(castle != 'O' && castle != '0'){
+            return 0;
+        }
+        for(int i = start; i < end; i++){
+            if(this.token[i] != ((i - start) % 2 == 0 ? castle : '-')){
+                return 0;
+            }
+        }
+        return length;
+    }
+
+    private static PieceType pieceTypeOf(final byte letter){
+        switch(letter){
+            case 'K': return PieceType.KING;
+            case 'Q': return PieceType.QUEEN;
+            case 'R': return PieceType.ROOK;
+            case 'B': return PieceType.BISHOP;
+            case 'N': return PieceType.KNIGHT;
+            default: return null;
+        }
+    }
+
+    private static boolean isFile(final byte b){
+        return b >= 'a' && b <= 'h';
+    }
+
+    private static boolean isRank(final byte b){
+        return b >= '1' && b <= '8';
+    }
+
+    // Square 0 is a8, so the rank counts down from the top row.
+    private static int coordinate(final byte file, final byte rank){
+        return (BoardUtils.NUM_SQUARES_PER_ROW - (rank - '0')) * BoardUtils.NUM_SQUARES_PER_ROW + (file - 'a');
+    }
+
+    private boolean tokenEquals(final String text){
+        if(this.tokenLength != text.length()){
+            return false;
+        }
+        for(int i = 0; i < this.tokenLength; i++){
+            if(this.token[i] != text.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendToken(final int c){
+        if(this.tokenLength == this.token.length){
+            final byte[] grown = new byte[this.token.length * 2];
+            System.arraycopy(this.token, 0, grown, 0, this.tokenLength);
+            this.token = grown;
+        }
+        this.token[this.tokenLength++] = (byte) c;
+    }
+
+    // Skip a variation after its opening parenthesis, nested ones and comments included.
+    private void skipVariation() throws IOException{
+        int depth = 1;
+        while(depth > 0){
+            final int c = next();
+            switch(c){
+                case END_OF_INPUT: return;
+                case '(': depth++; break;
+                case ')': depth--; break;
+                case '{': skipPast('}'); break;
+                case ';': skipPast('\n'); break;
+                default: break;
+            }
+        }
+    }
+
+    private void skipPast(final int last) throws IOException{
+        int c;
+        do{
+            c = next();
+        } while(c != last && c != END_OF_INPUT);
+    }
+
+    private int skipWhitespace() throws IOException{
+        int c;
+        do{
+            c = next();
+        } while(isWhitespace(c));
+        return c;
+    }
+
+    private static boolean isWhitespace(final int c){
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    private int next() throws IOException{
+        if(this.pushedBack != NOTHING_PUSHED_BACK){
+            final int c = this.pushedBack;
+            this.pushedBack = NOTHING_PUSHED_BACK;
+            return c;
+        }
+        if(!this.buffer.hasRemaining() && !fill()){
+            return END_OF_INPUT;
+        }
+        return this.buffer.get() & 0xFF;
+    }
+
+    // Read the next block of the range into the buffer, with positional reads so readers can share the channel.
+    private boolean fill() throws IOException{
+        this.buffer.clear();
+        this.buffer.limit((int) Math.min(this.buffer.capacity(), this.end - this.position));
+        while(this.buffer.hasRemaining()){
+            if(this.channel.read(this.buffer, this.position + this.buffer.position()) < 0){
+                break;
+            }
+        }
+        this.position += this.buffer.position();
+        this.buffer.flip();
+        return this.buffer.hasRemaining();
+    }
+}